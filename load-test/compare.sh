@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# Прогон load-test/licensing.js в обоих режимах и запись результатов в таблицу load-test/README.md.
+# Запуск из корня проекта: EMAIL=... PASSWORD=... MAC=... DEVICE_NAME=... bash load-test/compare.sh
+# Нужны JDK 21+ (оба режима на одной JVM), k6, jq и доступная MySQL из application.properties.
+set -euo pipefail
+
+: "${EMAIL:?нужен EMAIL}" "${PASSWORD:?нужен PASSWORD}" "${MAC:?нужен MAC}" "${DEVICE_NAME:?нужен DEVICE_NAME}"
+
+MANAGEMENT_URL="http://127.0.0.1:${MANAGEMENT_PORT:-8081}/actuator/health"
+README=load-test/README.md
+# пик нагрузки check (2000 запросов/с) — с 1m30s по 2m30s от старта k6
+PEAK_DELAY=${PEAK_DELAY:-120}
+
+for tool in k6 jq curl jcmd setsid; do
+    command -v "$tool" >/dev/null || { echo "не найден $tool" >&2; exit 1; }
+done
+java_major=$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')
+if [ "${java_major%%.*}" -lt 21 ]; then
+    echo "нужен JDK 21+, найден $java_major" >&2
+    exit 1
+fi
+
+mkdir -p target
+
+run_mode() {
+    local mode=$1 profile=$2
+    local app_log=target/app-$mode.log summary=target/k6-$mode.json
+
+    echo "== $mode: запуск приложения"
+    setsid sh ./mvnw -q $profile spring-boot:run >"$app_log" 2>&1 &
+    local mvn_pid=$!
+    trap "kill -- -$mvn_pid 2>/dev/null || true" EXIT
+
+    until curl -sf "$MANAGEMENT_URL" >/dev/null; do
+        kill -0 "$mvn_pid" 2>/dev/null || { echo "приложение не запустилось, см. $app_log" >&2; exit 1; }
+        sleep 2
+    done
+    local app_pid
+    app_pid=$(jcmd -l | awk '/PshandakovApplication/ {print $1; exit}')
+
+    echo "== $mode: k6"
+    k6 run -e EMAIL="$EMAIL" -e PASSWORD="$PASSWORD" -e MAC="$MAC" -e DEVICE_NAME="$DEVICE_NAME" \
+        --summary-export="$summary" load-test/licensing.js &
+    local k6_pid=$!
+    sleep "$PEAK_DELAY"
+    local os_threads
+    os_threads=$(jcmd "$app_pid" Thread.print | grep -c '^"')
+    # превышение порогов k6 не прерывает сравнение: ошибки попадают в таблицу
+    wait "$k6_pid" || true
+
+    kill -- -"$mvn_pid" 2>/dev/null || true
+    wait "$mvn_pid" 2>/dev/null || true
+    trap - EXIT
+
+    # -Djdk.tracePinnedThreads печатает стек каждого закрепления через VirtualThread.onPinned
+    local pinned=—
+    if [ -n "$profile" ]; then
+        pinned=$(grep -c 'onPinned' "$app_log" || true)
+    fi
+
+    jq -r --arg date "$(date +%F)" \
+          --arg machine "$(nproc) CPU, $(uname -m)" \
+          --arg jdk "$java_major" \
+          --arg pool "${DB_POOL_SIZE:-20}" \
+          --arg mode "$MODE_TITLE" \
+          --arg threads "$os_threads" \
+          --arg pinned "$pinned" '
+        .metrics as $m
+        | "| \($date) | \($machine) | \($jdk) | \($pool) | \($mode) | \($m["http_reqs{scenario:check}"].rate | floor) | \($m["http_req_duration{scenario:check}"]["p(95)"] | floor) / \($m["http_req_duration{scenario:check}"]["p(99)"] | floor) | \(($m["http_req_failed{scenario:check}"].value * 10000 | round) / 100)% | \($threads) | \($pinned) |"
+    ' "$summary" >>target/load-test-rows.md
+}
+
+: >target/load-test-rows.md
+MODE_TITLE=платформенные run_mode platform ""
+MODE_TITLE=виртуальные run_mode virtual "-P virtual-threads"
+
+# строки-заглушки заменяются результатами; таблица — последний блок README
+sed -i '/не измерено/d' "$README"
+cat target/load-test-rows.md >>"$README"
+cat target/load-test-rows.md
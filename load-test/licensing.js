@@ -0,0 +1,69 @@
+// Нагрузочный тест эндпоинтов лицензирования (k6).
+// Запуск: k6 run -e EMAIL=... -e PASSWORD=... -e MAC=... -e DEVICE_NAME=... \
+//         --summary-export=target/k6-<режим>.json load-test/licensing.js
+// Устройство с MAC/DEVICE_NAME должно быть заранее активировано пользователем EMAIL.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+    scenarios: {
+        check: {
+            executor: 'ramping-arrival-rate',
+            exec: 'licenseCheck',
+            startRate: 50,
+            timeUnit: '1s',
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+            stages: [
+                { target: 500, duration: '30s' },
+                { target: 2000, duration: '1m' },
+                { target: 2000, duration: '1m' },
+            ],
+        },
+        verify: {
+            executor: 'constant-arrival-rate',
+            exec: 'ticketVerify',
+            rate: 200,
+            timeUnit: '1s',
+            duration: '2m30s',
+            preAllocatedVUs: 50,
+            maxVUs: 500,
+        },
+    },
+    // p(99) нужен в --summary-export для таблицы результатов (load-test/compare.sh)
+    summaryTrendStats: ['avg', 'min', 'med', 'max', 'p(90)', 'p(95)', 'p(99)'],
+    thresholds: {
+        // без порога подметрика http_reqs{scenario:check} не попадает в сводку
+        'http_reqs{scenario:check}': ['count>0'],
+        'http_req_failed{scenario:check}': ['rate<0.01'],
+        'http_req_duration{scenario:check}': ['p(95)<200', 'p(99)<500'],
+        'http_req_duration{scenario:verify}': ['p(95)<100'],
+    },
+};
+
+export function setup() {
+    const login = http.post(`${BASE_URL}/auth/login`,
+        JSON.stringify({ email: __ENV.EMAIL, password: __ENV.PASSWORD }), { headers: JSON_HEADERS });
+    check(login, { 'login 200': (r) => r.status === 200 });
+    const token = login.json('token');
+
+    const headers = Object.assign({ Authorization: `Bearer ${token}` }, JSON_HEADERS);
+    const body = JSON.stringify({ macAddress: __ENV.MAC, deviceName: __ENV.DEVICE_NAME });
+    const first = http.post(`${BASE_URL}/licensing/check`, body, { headers });
+    check(first, { 'check 200': (r) => r.status === 200 });
+
+    return { headers, body, ticket: JSON.stringify(first.json('ticket')) };
+}
+
+export function licenseCheck(data) {
+    const res = http.post(`${BASE_URL}/licensing/check`, data.body, { headers: data.headers });
+    check(res, { 'check 200': (r) => r.status === 200 });
+}
+
+export function ticketVerify(data) {
+    const res = http.post(`${BASE_URL}/licensing/verify`, data.ticket, { headers: JSON_HEADERS });
+    check(res, { 'verify 200': (r) => r.status === 200 });
+}
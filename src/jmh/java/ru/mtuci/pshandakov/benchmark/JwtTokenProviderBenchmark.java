@@ -0,0 +1,79 @@
+package ru.mtuci.pshandakov.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.mtuci.pshandakov.configuration.JwtTokenProvider;
+import ru.mtuci.pshandakov.model.ApplicationRole;
+import ru.mtuci.pshandakov.model.ApplicationUser;
+import ru.mtuci.pshandakov.service.impl.TokenRevocationService;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выдача и разбор JWT. validateToken повторяет один токен и попадает в кэш claims,
+ * getRolesFromToken каждый раз проверяет подпись — так разбирается первый запрос с новым токеном.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider provider;
+    private ApplicationUser user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // версии токенов без БД
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(null, null) {
+            @Override
+            public long getVersion(Long userId) {
+                return 0;
+            }
+        };
+
+        provider = new JwtTokenProvider(null, tokenRevocationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(provider, "secret", "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret");
+        ReflectionTestUtils.setField(provider, "expiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(provider, "stateless", true);
+        ReflectionTestUtils.setField(provider, "claimsCacheMaxSize", 10_000L);
+        provider.init();
+
+        user = ApplicationUser.builder()
+                .id(42L)
+                .username("benchmark")
+                .email("benchmark@example.com")
+                .role(ApplicationRole.USER)
+                .build();
+        token = provider.createToken(user);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return provider.createToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return provider.validateToken(token);
+    }
+
+    @Benchmark
+    public Set<String> getRolesFromToken() {
+        return provider.getRolesFromToken(token);
+    }
+}
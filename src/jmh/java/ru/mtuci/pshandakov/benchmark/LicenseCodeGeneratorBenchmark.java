@@ -0,0 +1,54 @@
+package ru.mtuci.pshandakov.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.mtuci.pshandakov.service.impl.LicenseCodeGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерация кода активации (случайная часть и символы проверки) и проверка кода перед запросом к БД.
+ * Пул и проверка уникальности по БД не участвуют. generateContended — общий SecureRandom под нагрузкой.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LicenseCodeGeneratorBenchmark {
+
+    private LicenseCodeGenerator generator;
+    private String code;
+
+    @Setup
+    public void setUp() throws Exception {
+        generator = new LicenseCodeGenerator(null, 1, 0, 1, "benchmark-checksum-key");
+        code = generator.generate();
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateContended() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    public boolean hasValidChecksum() {
+        return generator.hasValidChecksum(code);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.mtuci.pshandakov.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.mtuci.pshandakov.utils.PasswordEncoders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время проверки пароля при входе для схем, которые можно задать в security.password.*.
+ * bcrypt-12 — прежняя схема, по ней хешированы существующие пароли.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "Str0ng!Passw0rd";
+
+    @Param({"bcrypt-12", "bcrypt-10", "bcrypt-8", "argon2-19456-2-1", "argon2-12288-3-1", "argon2-7168-5-1"})
+    private String scheme;
+
+    private PasswordEncoder encoder;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        String[] parts = scheme.split("-");
+        encoder = switch (parts[0]) {
+            case PasswordEncoders.BCRYPT -> PasswordEncoders.bcrypt(Integer.parseInt(parts[1]));
+            case PasswordEncoders.ARGON2 -> PasswordEncoders.argon2(
+                    Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            default -> throw new IllegalArgumentException(scheme);
+        };
+        encoded = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, encoded);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.mtuci.pshandakov.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.mtuci.pshandakov.service.impl.AuthenticationService;
+import ru.mtuci.pshandakov.utils.DateTimeUtil;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверки входных данных запросов: сложность пароля при регистрации
+ * и разбор новой даты окончания при продлении лицензии.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestValidationBenchmark {
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+    private static final String DATE = "2027-12-31T23:59:59";
+
+    /**
+     * Пароль с цифрой проходит первую проверку, со спецсимволом — вторую, без них проверяется целиком.
+     */
+    @State(Scope.Benchmark)
+    public static class Passwords {
+
+        @Param({"Str0ngPassword", "Strong!Password", "weakpasswordonly"})
+        private String password;
+    }
+
+    private AuthenticationService authenticationService;
+
+    @Setup
+    public void setUp() {
+        authenticationService = new AuthenticationService(null, null, null, null, null);
+        ReflectionTestUtils.setField(authenticationService, "minPasswordLength", 6);
+    }
+
+    @Benchmark
+    public boolean checkPasswordComplexity(Passwords passwords) {
+        try {
+            authenticationService.checkPasswordComplexity(passwords.password);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public Date parseFromString() throws Exception {
+        return DateTimeUtil.parseFromString(DATE_PATTERN, DATE);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.mtuci.pshandakov.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.mtuci.pshandakov.model.Ticket;
+import ru.mtuci.pshandakov.utils.SignatureUtil;
+import ru.mtuci.pshandakov.utils.TicketSignatureAlgorithm;
+
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подпись тикета целиком через {@link SignatureUtil}: каноническое кодирование, пул подписей и base64.
+ * В отличие от {@link TicketSignerBenchmark} включает все, что выполняется на запрос.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketBenchmark {
+
+    private static final String DETAIL = "Лицензия активирована на устройстве. 1024";
+
+    @Param({"RSA", "ECDSA_P256", "ED25519"})
+    private TicketSignatureAlgorithm algorithm;
+
+    private Date expirationDate;
+    private Ticket ticket;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair keyPair = algorithm.generateKeyPair();
+        SignatureUtil.init(algorithm.newSigner(SignatureUtil.computeKeyId(keyPair.getPublic()),
+                keyPair.getPublic(), keyPair.getPrivate(), 4));
+
+        expirationDate = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(365));
+        ticket = Ticket.prepareTicket(42L, false, expirationDate, DETAIL);
+        ticket.setDeviceId(1337L);
+    }
+
+    @Benchmark
+    public String makeSignature() throws Exception {
+        return SignatureUtil.makeSignature(ticket);
+    }
+
+    @Benchmark
+    public Ticket createTicket() throws Exception {
+        return Ticket.createTicket(42L, false, expirationDate, DETAIL);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.mtuci.pshandakov.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.mtuci.pshandakov.model.Ticket;
+import ru.mtuci.pshandakov.utils.SignatureUtil;
+import ru.mtuci.pshandakov.utils.TicketCanonicalEncoder;
+import ru.mtuci.pshandakov.utils.TicketSignatureAlgorithm;
+import ru.mtuci.pshandakov.utils.TicketSigner;
+
+import java.security.KeyPair;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение подписантов тикетов на типичном тикете ответа /licensing/check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketSignerBenchmark {
+
+    @Param({"RSA", "ECDSA_P256", "ED25519"})
+    private TicketSignatureAlgorithm algorithm;
+
+    private TicketSigner signer;
+    private byte[] payload;
+    private byte[] signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair keyPair = algorithm.generateKeyPair();
+        signer = algorithm.newSigner(SignatureUtil.computeKeyId(keyPair.getPublic()), keyPair.getPublic(), keyPair.getPrivate(), 4);
+
+        Ticket ticket = Ticket.builder()
+                .serverDate(LocalDateTime.now())
+                .ticketLifetime(2)
+                .activationDate(new Date())
+                .expirationDate(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(365)))
+                .userId(42L)
+                .deviceId(1337L)
+                .isBlocked(false)
+                .detail("Лицензия активирована на устройстве. 1024")
+                .keyId(signer.getKeyId())
+                .build();
+        payload = TicketCanonicalEncoder.encode(ticket).toByteArray();
+        signature = signer.sign(payload, 0, payload.length);
+    }
+
+    @Benchmark
+    public byte[] sign() throws Exception {
+        return signer.sign(payload, 0, payload.length);
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return signer.verify(payload, 0, payload.length, signature);
+    }
+}
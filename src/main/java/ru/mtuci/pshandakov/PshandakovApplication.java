@@ -2,8 +2,10 @@ package ru.mtuci.pshandakov;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PshandakovApplication {
 
     public static void main(String[] args) {
@@ -1,29 +1,61 @@
 package ru.mtuci.pshandakov.configuration;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
+import ru.mtuci.pshandakov.model.ApplicationRole;
+import ru.mtuci.pshandakov.model.ApplicationUser;
+import ru.mtuci.pshandakov.service.impl.TokenRevocationService;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class JwtTokenProvider {
 
+    /**
+     * Атрибут запроса с уже проверенными claims токена: токен разбирается один раз за запрос.
+     */
+    public static final String CLAIMS_ATTRIBUTE = JwtTokenProvider.class.getName() + ".claims";
+
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_USERNAME = "uname";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_AUTHORITIES = "auth";
+    private static final String CLAIM_TOKEN_VERSION = "ver";
+
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${jwt.secret}")
     private String secret;
@@ -31,13 +63,121 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long expiration;
 
+    /**
+     * true — пользователь и роли берутся из claims токена без запроса к users.
+     */
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
+
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    /**
+     * Проверенные claims по SHA-256 токена; запись живет до exp токена.
+     */
+    private Cache<String, Claims> claimsCache;
+
+    /**
+     * Время {@link #parseClaims} по результату: cached — из кэша, parsed — проверена подпись,
+     * expired — истек срок записи кэша, invalid — подпись или формат не прошли проверку.
+     */
+    private Timer cachedTimer;
+    private Timer parsedTimer;
+    private Timer expiredTimer;
+    private Timer invalidTimer;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry())
+                .build();
+        cachedTimer = parseTimer("cached");
+        parsedTimer = parseTimer("parsed");
+        expiredTimer = parseTimer("expired");
+        invalidTimer = parseTimer("invalid");
+    }
+
+    private Timer parseTimer(String result) {
+        return Timer.builder("security.jwt.parse")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    /**
+     * Проверяет подпись и срок токена. Повторные запросы с тем же токеном берут claims из кэша.
+     */
+    public Optional<Claims> parseClaims(String token) {
+        long start = System.nanoTime();
+        String cacheKey = hash(token);
+        Claims claims = claimsCache.getIfPresent(cacheKey);
+        if (claims != null) {
+            if (claims.getExpiration() == null || claims.getExpiration().after(new Date())) {
+                cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return Optional.of(claims);
+            }
+            claimsCache.invalidate(cacheKey);
+            expiredTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
+
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
+
+        claimsCache.put(cacheKey, claims);
+        parsedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return Optional.of(claims);
+    }
+
+    /**
+     * Claims токена из заголовка Authorization; результат сохраняется в атрибуте запроса.
+     */
+    public Optional<Claims> getClaims(HttpServletRequest request) {
+        Object cached = request.getAttribute(CLAIMS_ATTRIBUTE);
+        if (cached instanceof Claims claims) {
+            return Optional.of(claims);
+        }
+
+        String token = resolveToken(request);
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        Optional<Claims> claims = parseClaims(token);
+        claims.ifPresent(value -> request.setAttribute(CLAIMS_ATTRIBUTE, value));
+        return claims;
+    }
+
+    public String createToken(ApplicationUser user) {
+        Claims claims = Jwts.claims().setSubject(user.getEmail());
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_USERNAME, user.getUsername());
+        claims.put(CLAIM_ROLE, user.getRole().name());
+        claims.put(CLAIM_TOKEN_VERSION, tokenRevocationService.getVersion(user.getId()));
+        return createToken(claims, user.getRole().getGrantedAuthorities());
     }
 
     public String createToken(String username, Set<GrantedAuthority> authorities) {
-        Claims claims = Jwts.claims().setSubject(username);
-        claims.put("auth", authorities.stream()
+        return createToken(Jwts.claims().setSubject(username), authorities);
+    }
+
+    private String createToken(Claims claims, Set<GrantedAuthority> authorities) {
+        claims.put(CLAIM_AUTHORITIES, authorities.stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList())
         );
@@ -54,65 +194,72 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return parseClaims(token).isPresent();
     }
 
     public String getUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
+        return parser.parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
 
     public Authentication getAuthentication(String token) {
-        String username = getUsername(token);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        return getAuthentication(parser.parseClaimsJws(token).getBody());
     }
 
-    public Set<String> getRolesFromRequest(HttpServletRequest request) {
-
-        String token = resolveToken(request);
-
-
-        if (token == null) {
-            throw new IllegalArgumentException("Токен не найден в запросе");
+    /**
+     * Аутентификация по claims. В режиме jwt.stateless токен с uid и ver не требует запроса к users:
+     * проверяется только версия токена в памяти. Возвращает null для отозванного токена.
+     */
+    public Authentication getAuthentication(Claims claims) {
+        if (isStateless(claims)) {
+            Long userId = claims.get(CLAIM_USER_ID, Long.class);
+            if (!tokenRevocationService.isCurrent(userId, claims.get(CLAIM_TOKEN_VERSION, Long.class))) {
+                return null;
+            }
+
+            Set<GrantedAuthority> authorities = getRolesFromClaims(claims).stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toSet());
+            UserDetails userDetails = new User(claims.getSubject(), "", authorities);
+            return new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
         }
 
-
-        return getRolesFromToken(token);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
     }
 
-    public String getEmailFromRequest(HttpServletRequest request) {
-
-        String token = resolveToken(request);
-
+    /**
+     * Пользователь из claims токена запроса, если токен выдан в режиме jwt.stateless.
+     * Объект не загружен из БД: в нем есть только id, email, username и роль.
+     */
+    public Optional<ApplicationUser> getUserFromRequest(HttpServletRequest request) {
+        return getClaims(request)
+                .filter(this::isStateless)
+                .map(claims -> ApplicationUser.builder()
+                        .id(claims.get(CLAIM_USER_ID, Long.class))
+                        .email(claims.getSubject())
+                        .username(claims.get(CLAIM_USERNAME, String.class))
+                        .role(ApplicationRole.valueOf(claims.get(CLAIM_ROLE, String.class)))
+                        .build());
+    }
 
-        if (token == null) {
-            throw new IllegalArgumentException("Токен не найден в запросе");
-        }
+    private boolean isStateless(Claims claims) {
+        return stateless && claims.containsKey(CLAIM_USER_ID) && claims.containsKey(CLAIM_TOKEN_VERSION)
+                && claims.containsKey(CLAIM_ROLE);
+    }
 
+    public Set<String> getRolesFromRequest(HttpServletRequest request) {
+        return getRolesFromClaims(requireClaims(request));
+    }
 
-        return getEmailFromToken(token);
+    public String getEmailFromRequest(HttpServletRequest request) {
+        return requireClaims(request).getSubject();
     }
 
     public String getEmailFromToken(String token)
     {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
         String email = claims.getSubject();
 
@@ -120,19 +267,56 @@ public class JwtTokenProvider {
 
     }
     public Set<String> getRolesFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
+        return getRolesFromClaims(parser.parseClaimsJws(token).getBody());
+    }
 
-        List<String> roles = (List<String>) claims.get("auth");
+    private Set<String> getRolesFromClaims(Claims claims) {
+        List<String> roles = (List<String>) claims.get(CLAIM_AUTHORITIES);
 
 
         return roles.stream().collect(Collectors.toSet());
     }
 
+    private Claims requireClaims(HttpServletRequest request) {
+        if (resolveToken(request) == null) {
+            throw new IllegalArgumentException("Токен не найден в запросе");
+        }
+
+        return getClaims(request)
+                .orElseThrow(() -> new JwtException("Недействительный токен"));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiresAt = claims.getExpiration();
+            if (expiresAt == null) {
+                return 0;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAt.getTime() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     private String resolveToken(HttpServletRequest request) {
 
         String bearerToken = request.getHeader("Authorization");
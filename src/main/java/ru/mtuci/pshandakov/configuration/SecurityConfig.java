@@ -1,6 +1,8 @@
 package ru.mtuci.pshandakov.configuration;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,10 +12,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import ru.mtuci.pshandakov.utils.BoundedPasswordEncoder;
+import ru.mtuci.pshandakov.utils.PasswordEncoders;
+
+import java.time.Duration;
 
 @Configuration
 @RequiredArgsConstructor
@@ -22,6 +26,9 @@ public class SecurityConfig {
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public JwtTokenFilter jwtTokenFilter() {
         return new JwtTokenFilter(jwtTokenProvider, userDetailsService);
@@ -33,7 +40,13 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // завершение потоковых ответов: доступ проверен при исходном запросе
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/login", "/auth/register").permitAll()
+                        .requestMatchers("/licensing/keys", "/licensing/verify", "/licensing/verify/batch").permitAll()
+                        // actuator без токена только на порту управления (management.server.port)
+                        .requestMatchers(request -> request.getLocalPort() == managementPort
+                                && request.getRequestURI().startsWith("/actuator/")).permitAll()
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
@@ -47,7 +60,16 @@ public class SecurityConfig {
 
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public BoundedPasswordEncoder passwordEncoder(@Value("${security.password-hashing.threads:2}") int threads,
+                                                  @Value("${security.password-hashing.queue-capacity:16}") int queueCapacity,
+                                                  @Value("${security.password-hashing.timeout:PT5S}") Duration timeout,
+                                                  @Value("${security.password.encoder:bcrypt}") String encoderId,
+                                                  @Value("${security.password.bcrypt-strength:12}") int bcryptStrength,
+                                                  @Value("${security.password.argon2.memory-kb:19456}") int argon2MemoryKb,
+                                                  @Value("${security.password.argon2.iterations:2}") int argon2Iterations,
+                                                  @Value("${security.password.argon2.parallelism:1}") int argon2Parallelism) {
+        return new BoundedPasswordEncoder(
+                PasswordEncoders.delegating(encoderId, bcryptStrength, argon2MemoryKb, argon2Iterations, argon2Parallelism),
+                threads, queueCapacity, timeout);
     }
 }
@@ -3,7 +3,9 @@ package ru.mtuci.pshandakov.controller;
 import jakarta.annotation.security.RolesAllowed;
 import lombok.RequiredArgsConstructor;
 import ru.mtuci.pshandakov.model.ApplicationUser;
+import ru.mtuci.pshandakov.model.CacheStatistics;
 import ru.mtuci.pshandakov.service.impl.ApplicationUserService;
+import ru.mtuci.pshandakov.service.impl.UserCacheService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +25,7 @@ import java.util.Optional;
 public class ApplicationUserController {
 
     private final ApplicationUserService applicationUserService;
+    private final UserCacheService userCacheService;
 
     @GetMapping
     @RolesAllowed("ROLE_ADMIN")
@@ -31,13 +34,19 @@ public class ApplicationUserController {
     }
 
 
+    @GetMapping("/cache/stats")
+    @RolesAllowed("ROLE_ADMIN")
+    public ResponseEntity<List<CacheStatistics>> getCacheStatistics() {
+        return ResponseEntity.ok(userCacheService.getStatistics());
+    }
+
     @GetMapping("/{id}")
     @RolesAllowed("ROLE_ADMIN")
     public ResponseEntity<ApplicationUser> getUserById(@PathVariable Long id) {
         if (id == null) {
             return ResponseEntity.badRequest().build();
         }
-        Optional<ApplicationUser> user = applicationUserService.getUserById(id);
+        Optional<ApplicationUser> user = applicationUserService.findUserById(id);
         return user.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
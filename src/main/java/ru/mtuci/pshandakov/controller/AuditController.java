@@ -0,0 +1,32 @@
+package ru.mtuci.pshandakov.controller;
+
+import jakarta.annotation.security.RolesAllowed;
+import lombok.RequiredArgsConstructor;
+import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
+import ru.mtuci.pshandakov.service.impl.AuditService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/audit")
+public class AuditController {
+
+    private final AuditService auditService;
+
+    @GetMapping
+    @RolesAllowed("ROLE_ADMIN")
+    public ResponseEntity<List<ActionAuthRegHistory>> findActions(
+            @RequestParam String email,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(auditService.find(email, from, to));
+    }
+}
@@ -1,21 +1,33 @@
 package ru.mtuci.pshandakov.controller;
 
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.mtuci.pshandakov.exception.PasswordComplexityException;
+import ru.mtuci.pshandakov.exception.PasswordHashingRejectedException;
+import ru.mtuci.pshandakov.exception.RateLimitExceededException;
 import ru.mtuci.pshandakov.model.AuthenticationRequest;
+import ru.mtuci.pshandakov.model.PasswordHashingStats;
+import ru.mtuci.pshandakov.model.RateLimitStats;
 import ru.mtuci.pshandakov.model.RegistrationRequest;
 import ru.mtuci.pshandakov.service.impl.AuthenticationService;
+import ru.mtuci.pshandakov.service.impl.RateLimitService;
+import ru.mtuci.pshandakov.utils.BoundedPasswordEncoder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @Slf4j
@@ -23,10 +35,13 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthenticationController {
 
     private final AuthenticationService authenticationService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final RateLimitService rateLimitService;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthenticationRequest request) {
+    public ResponseEntity<?> login(HttpServletRequest httpRequest, @RequestBody AuthenticationRequest request) {
         try {
+            rateLimitService.check(RateLimitService.Policy.LOGIN, httpRequest.getRemoteAddr(), request.getEmail(), null);
             return ResponseEntity.ok(authenticationService.login(request));
         } catch (UsernameNotFoundException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
@@ -34,6 +49,10 @@ public class AuthenticationController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Неверный пароль.");
         } catch (AuthenticationException ex) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Ошибка аутентификации.");
+        } catch (PasswordHashingRejectedException ex) {
+            return hashingRejected(ex);
+        } catch (RateLimitExceededException ex) {
+            return rateLimited(ex);
         }
     }
 
@@ -43,11 +62,35 @@ public class AuthenticationController {
             return ResponseEntity.status(HttpStatus.CREATED).body(authenticationService.registerUser(request));
         } catch (PasswordComplexityException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
+        } catch (PasswordHashingRejectedException ex) {
+            return hashingRejected(ex);
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Ошибка регистрации");
         }
     }
 
-}
+    @GetMapping("/hashing/stats")
+    @RolesAllowed("ROLE_ADMIN")
+    public ResponseEntity<PasswordHashingStats> getHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+
+    @GetMapping("/rate-limit/stats")
+    @RolesAllowed("ROLE_ADMIN")
+    public ResponseEntity<List<RateLimitStats>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimitService.getStats());
+    }
 
+    private ResponseEntity<String> rateLimited(RateLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
 
+    private ResponseEntity<String> hashingRejected(PasswordHashingRejectedException ex) {
+        log.warn("Запрос аутентификации отклонен: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+}
@@ -3,6 +3,8 @@ package ru.mtuci.pshandakov.controller;
 import jakarta.annotation.security.RolesAllowed;
 import lombok.RequiredArgsConstructor;
 import ru.mtuci.pshandakov.model.Device;
+import ru.mtuci.pshandakov.model.DeviceLicenseIndexStats;
+import ru.mtuci.pshandakov.service.impl.DeviceLicenseIndex;
 import ru.mtuci.pshandakov.service.impl.DeviceService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +25,7 @@ import java.util.Optional;
 public class DeviceController {
 
     private final DeviceService deviceService;
+    private final DeviceLicenseIndex deviceLicenseIndex;
 
     @PostMapping
     @RolesAllowed("ROLE_ADMIN")
@@ -59,6 +62,12 @@ public class DeviceController {
         }
     }
 
+    @GetMapping("/index/stats")
+    @RolesAllowed("ROLE_ADMIN")
+    public ResponseEntity<DeviceLicenseIndexStats> getIndexStats() {
+        return ResponseEntity.ok(deviceLicenseIndex.getStats());
+    }
+
     @GetMapping("/mac/{macAddress}")
     @RolesAllowed("ROLE_ADMIN")
     public ResponseEntity<Device> getDeviceByMacAddress(@PathVariable String macAddress) {
@@ -3,7 +3,11 @@ package ru.mtuci.pshandakov.controller;
 import jakarta.annotation.security.RolesAllowed;
 import lombok.RequiredArgsConstructor;
 import ru.mtuci.pshandakov.model.License;
+import ru.mtuci.pshandakov.model.LicenseCodeFilterStats;
+import ru.mtuci.pshandakov.service.impl.LicenseCodeFilter;
 import ru.mtuci.pshandakov.service.impl.LicenseService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +27,7 @@ import java.util.Optional;
 public class LicenseController {
 
     private final LicenseService licenseService;
+    private final LicenseCodeFilter licenseCodeFilter;
 
     @GetMapping
     @RolesAllowed("ROLE_ADMIN")
@@ -30,6 +35,12 @@ public class LicenseController {
         return ResponseEntity.ok(licenseService.getAllLicenses());
     }
 
+    @GetMapping("/code-filter/stats")
+    @RolesAllowed("ROLE_ADMIN")
+    public ResponseEntity<LicenseCodeFilterStats> getCodeFilterStats() {
+        return ResponseEntity.ok(licenseCodeFilter.getStats());
+    }
+
     @GetMapping("/{id}")
     @RolesAllowed("ROLE_ADMIN")
     public ResponseEntity<License> getLicenseById(@PathVariable Long id) {
@@ -41,20 +52,31 @@ public class LicenseController {
 
     @PostMapping
     @RolesAllowed("ROLE_ADMIN")
-    public ResponseEntity<License> createLicense(@RequestBody License license) {
-        var licenseCreated = licenseService.createLicense(license);
-        return ResponseEntity.ok().body(licenseCreated);
+    public ResponseEntity<?> createLicense(@RequestBody License license) {
+        try {
+            var licenseCreated = licenseService.createLicense(license);
+            return ResponseEntity.ok().body(licenseCreated);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PutMapping("/{id}")
     @RolesAllowed("ROLE_ADMIN")
-    public ResponseEntity<License> updateLicense(@PathVariable Long id, @RequestBody License license) {
+    public ResponseEntity<?> updateLicense(@PathVariable Long id, @RequestBody License license) {
         license.setId(id);
-        var updatedLicense = licenseService.updateLicense(license);
+        try {
+            var updatedLicense = licenseService.updateLicense(license);
 
-        return updatedLicense
-                .map(value -> ResponseEntity.ok().body(value))
-                .orElseGet(() -> ResponseEntity.notFound().build());
+            return updatedLicense
+                    .<ResponseEntity<?>>map(value -> ResponseEntity.ok().body(value))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Лицензия изменена другим запросом: перечитайте ее и повторите обновление");
+        }
     }
 
     @DeleteMapping("/{id}")
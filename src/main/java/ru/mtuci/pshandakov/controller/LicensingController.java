@@ -2,31 +2,51 @@ package ru.mtuci.pshandakov.controller;
 
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.servlet.http.HttpServletRequest;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 
 import lombok.extern.slf4j.Slf4j;
 
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.mtuci.pshandakov.configuration.JwtTokenProvider;
 import ru.mtuci.pshandakov.exception.LicenseException;
+import ru.mtuci.pshandakov.exception.RateLimitExceededException;
 import ru.mtuci.pshandakov.model.ApplicationUser;
 import ru.mtuci.pshandakov.model.LicenseActivationRequest;
+import ru.mtuci.pshandakov.model.LicenseBulkCreateRequest;
+import ru.mtuci.pshandakov.model.LicenseBulkCreation;
 import ru.mtuci.pshandakov.model.LicenseCheckRequest;
 import ru.mtuci.pshandakov.model.LicenseCreateRequest;
 import ru.mtuci.pshandakov.model.LicenseCreateResponse;
 import ru.mtuci.pshandakov.model.LicenseResponse;
 import ru.mtuci.pshandakov.model.LicenseUpdateRequest;
 import ru.mtuci.pshandakov.model.Ticket;
+import ru.mtuci.pshandakov.model.TicketEnvelope;
+import ru.mtuci.pshandakov.model.TicketSigningKeySet;
+import ru.mtuci.pshandakov.model.TicketVerificationResponse;
 import ru.mtuci.pshandakov.service.impl.ApplicationUserService;
 import ru.mtuci.pshandakov.service.impl.LicensingService;
-
+import ru.mtuci.pshandakov.service.impl.RateLimitService;
+import ru.mtuci.pshandakov.service.impl.TicketSigningKeyService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -38,13 +58,30 @@ public class LicensingController {
     private final JwtTokenProvider jwtTokenProvider;
     private final ApplicationUserService applicationUserService;
     private final LicensingService licensingService;
+    private final TicketSigningKeyService ticketSigningKeyService;
+    private final RateLimitService rateLimitService;
 
 
     private Optional<ApplicationUser> getUserFromRequest(HttpServletRequest request) {
+        Optional<ApplicationUser> user = jwtTokenProvider.getUserFromRequest(request);
+        if (user.isPresent()) {
+            return user;
+        }
+
         String email = jwtTokenProvider.getEmailFromRequest(request);
         return applicationUserService.getUserByEmail(email);
     }
 
+    private String getEmailFromRequest(HttpServletRequest request) {
+        return jwtTokenProvider.getClaims(request).map(Claims::getSubject).orElse(null);
+    }
+
+    private ResponseEntity<String> rateLimited(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
     private LicenseResponse licenseResponseWithErrorTicket(HttpServletRequest request, String message) {
         var user = getUserFromRequest(request).orElse(null);
         Ticket ticket = null;
@@ -80,6 +117,42 @@ public class LicensingController {
         }
     }
 
+    /**
+     * Пакетное создание лицензий. Коды возвращаются потоком text/plain, по одному в строке,
+     * по мере сохранения частей; обрыв потока означает, что созданы только полученные коды.
+     */
+    @PostMapping("/create/bulk")
+    @RolesAllowed("ROLE_ADMIN")
+    public ResponseEntity<?> createLicenses(HttpServletRequest request, @RequestBody LicenseBulkCreateRequest requestData) {
+        try {
+            LicenseBulkCreation creation = licensingService.prepareBulkCreation(getUserFromRequest(request).orElse(null), requestData);
+            StreamingResponseBody body = out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                licensingService.createLicenses(creation, codes -> {
+                    try {
+                        for (String code : codes) {
+                            writer.write(code);
+                            writer.write('\n');
+                        }
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            };
+            return ResponseEntity.status(HttpStatus.CREATED).contentType(MediaType.TEXT_PLAIN).body(body);
+        } catch (LicenseException e) {
+            return ResponseEntity.status(e.getHttpStatus()).body(LicenseCreateResponse.builder()
+                    .message(e.getMessage())
+                    .build());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    LicenseCreateResponse.builder()
+                            .message("Произошла ошибка при создании лицензий")
+                            .build());
+        }
+    }
+
     @PostMapping("/update")
     @RolesAllowed({"ROLE_USER", "ROLE_ADMIN"})
     public ResponseEntity<?> updateLicense(HttpServletRequest request, @RequestBody LicenseUpdateRequest requestData) {
@@ -103,8 +176,11 @@ public class LicensingController {
     @RolesAllowed({"ROLE_USER", "ROLE_ADMIN"})
     public ResponseEntity<?> checkLicense(HttpServletRequest request, @RequestBody LicenseCheckRequest requestData) {
         try {
+            rateLimitService.check(RateLimitService.Policy.CHECK, request.getRemoteAddr(), getEmailFromRequest(request), requestData.getMacAddress());
             var result = licensingService.checkLicense(getUserFromRequest(request).orElse(null), requestData);
             return ResponseEntity.ok().body(result);
+        } catch (RateLimitExceededException e) {
+            return rateLimited(e);
         } catch (LicenseException e) {
             if (e.isCreateTicket()) {
                 return ResponseEntity.status(e.getHttpStatus()).body(licenseResponseWithErrorTicket(request, e.getMessage()));
@@ -117,12 +193,37 @@ public class LicensingController {
     }
 
 
+    @PostMapping("/check/batch")
+    @RolesAllowed({"ROLE_USER", "ROLE_ADMIN"})
+    public ResponseEntity<?> checkLicenses(HttpServletRequest request, @RequestBody List<LicenseCheckRequest> requestData) {
+        try {
+            rateLimitService.checkBatch(RateLimitService.Policy.CHECK, request.getRemoteAddr(), getEmailFromRequest(request),
+                    requestData != null ? requestData.stream().map(LicenseCheckRequest::getMacAddress).toList() : List.of());
+            var result = licensingService.checkLicenses(getUserFromRequest(request).orElse(null), requestData);
+            return ResponseEntity.ok().body(result);
+        } catch (RateLimitExceededException e) {
+            return rateLimited(e);
+        } catch (LicenseException e) {
+            if (e.isCreateTicket()) {
+                return ResponseEntity.status(e.getHttpStatus()).body(licenseResponseWithErrorTicket(request, e.getMessage()));
+            }
+
+            return ResponseEntity.status(e.getHttpStatus()).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Произошла ошибка при проверке лицензий.");
+        }
+    }
+
+
     @PostMapping("/activation")
     @RolesAllowed({"ROLE_USER", "ROLE_ADMIN"})
     public ResponseEntity<?> activateLicense(HttpServletRequest request, @RequestBody LicenseActivationRequest activationRequest) {
         try {
+            rateLimitService.check(RateLimitService.Policy.ACTIVATION, request.getRemoteAddr(), getEmailFromRequest(request), activationRequest.getMacAddress());
             var result = licensingService.activateLicense(getUserFromRequest(request).orElse(null), activationRequest);
             return ResponseEntity.ok().body(result);
+        } catch (RateLimitExceededException e) {
+            return rateLimited(e);
         } catch (LicenseException e) {
             if (e.isCreateTicket()) {
                 return ResponseEntity.status(e.getHttpStatus()).body(licenseResponseWithErrorTicket(request, e.getMessage()));
@@ -133,4 +234,19 @@ public class LicensingController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
+
+    @GetMapping("/keys")
+    public ResponseEntity<TicketSigningKeySet> getSigningKeys() {
+        return ResponseEntity.ok(ticketSigningKeyService.getKeySet());
+    }
+
+    @PostMapping("/verify")
+    public ResponseEntity<TicketVerificationResponse> verifyTicket(@RequestBody Ticket ticket) {
+        return ResponseEntity.ok(ticketSigningKeyService.verifyTicket(ticket));
+    }
+
+    @PostMapping("/verify/batch")
+    public ResponseEntity<TicketVerificationResponse> verifyEnvelope(@RequestBody TicketEnvelope envelope) {
+        return ResponseEntity.ok(ticketSigningKeyService.verifyEnvelope(envelope));
+    }
 }
@@ -0,0 +1,10 @@
+package ru.mtuci.pshandakov.exception;
+
+/**
+ * Пул хеширования паролей перегружен: запрос отклоняется сразу, не занимая поток обработки запросов.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.mtuci.pshandakov.exception;
+
+import lombok.Getter;
+
+/**
+ * Превышен лимит запросов: запрос отклоняется до любой дорогой работы (БД, подпись, хеширование пароля).
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    @Getter
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String msg, long retryAfterSeconds) {
+        super(msg);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "action_auth_reg_history")
+@Table(name = "action_auth_reg_history", indexes = @Index(name = "idx_action_auth_reg_history_email_time", columnList = "email, time_action"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -10,7 +10,10 @@ import lombok.Setter;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_users_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_users_username", columnNames = "username")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -32,6 +35,13 @@ public class ApplicationUser {
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<License> licenses;
 
+    /**
+     * Версия токенов пользователя: токены с меньшей версией отзываются.
+     * Меняется только через TokenRevocationService, JPA ее не записывает.
+     */
+    @Column(name = "token_version", nullable = false, insertable = false, updatable = false)
+    private long tokenVersion;
+
     public String getUsername() {
         return username;
     }
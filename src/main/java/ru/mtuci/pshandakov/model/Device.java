@@ -11,7 +11,7 @@ import lombok.Setter;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "devices")
+@Table(name = "devices", indexes = @Index(name = "idx_devices_mac_address_name", columnList = "mac_address, name"))
 public class Device {
 
     @Id
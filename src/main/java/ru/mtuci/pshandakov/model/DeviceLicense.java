@@ -13,7 +13,8 @@ import java.util.Date;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "device_license")
+@Table(name = "device_license", uniqueConstraints = @UniqueConstraint(name = "uk_device_license_device_license",
+        columnNames = {"device_id", "license_id"}))
 public class DeviceLicense {
 
     @Id
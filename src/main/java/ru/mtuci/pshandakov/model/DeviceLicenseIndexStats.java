@@ -0,0 +1,17 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class DeviceLicenseIndexStats {
+
+    private int size;
+    private long hits;
+    private long misses;
+    private double hitRate;
+
+}
@@ -0,0 +1,11 @@
+package ru.mtuci.pshandakov.model;
+
+/**
+ * Строка для прогрева индекса устройств: проекция проверки плюс ключ поиска.
+ */
+public interface DeviceLicenseIndexView extends LicenseCheckView {
+
+    String getMacAddress();
+
+    String getDeviceName();
+}
@@ -9,7 +9,7 @@ import lombok.Setter;
 import java.util.Date;
 
 @Entity
-@Table(name = "licenses")
+@Table(name = "licenses", uniqueConstraints = @UniqueConstraint(name = "uk_licenses_code", columnNames = "code"))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -17,7 +17,9 @@ import java.util.Date;
 public class License {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "licenses")
+    @TableGenerator(name = "licenses", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "licenses", allocationSize = 500)
     @Column(name = "id")
     private Long id;
 
@@ -58,4 +60,8 @@ public class License {
 
     @Column(name = "description")
     private String description;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
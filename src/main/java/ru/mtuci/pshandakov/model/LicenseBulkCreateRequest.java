@@ -0,0 +1,17 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class LicenseBulkCreateRequest {
+
+    private Long productId;
+    private Long ownerId;
+    private Long licenseTypeId;
+    private String description;
+    private Integer deviceCount;
+    private Integer count;
+
+}
@@ -0,0 +1,21 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Проверенные параметры пакетного создания лицензий: продукт, владелец и тип найдены один раз на весь пакет.
+ */
+@Getter
+@AllArgsConstructor
+public class LicenseBulkCreation {
+
+    private final ApplicationUser user;
+    private final Product product;
+    private final ApplicationUser owner;
+    private final LicenseType licenseType;
+    private final Integer deviceCount;
+    private final String description;
+    private final int count;
+
+}
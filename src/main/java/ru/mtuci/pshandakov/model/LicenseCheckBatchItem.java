@@ -0,0 +1,29 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Результат проверки одного устройства в пакетной проверке. Тикет не подписывается отдельно:
+ * его покрывает подпись {@link TicketEnvelope}. При ошибке тикета нет, причина в message.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LicenseCheckBatchItem {
+
+    private String macAddress;
+
+    private String deviceName;
+
+    private int status;
+
+    private String message;
+
+    private Ticket ticket;
+}
@@ -0,0 +1,17 @@
+package ru.mtuci.pshandakov.model;
+
+import java.util.Date;
+
+/**
+ * Проекция для проверки лицензии: только поля, из которых собирается тикет.
+ */
+public interface LicenseCheckView {
+
+    Long getLicenseId();
+
+    Long getDeviceId();
+
+    Long getUserId();
+
+    Date getEndingDate();
+}
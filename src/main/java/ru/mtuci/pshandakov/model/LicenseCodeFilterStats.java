@@ -0,0 +1,18 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class LicenseCodeFilterStats {
+
+    private long legacyCodes;
+    private long bitCount;
+    private int hashCount;
+    private long passed;
+    private long rejected;
+
+}
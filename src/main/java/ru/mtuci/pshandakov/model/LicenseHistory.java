@@ -17,7 +17,9 @@ import java.util.Date;
 public class LicenseHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "license_history")
+    @TableGenerator(name = "license_history", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "license_history", allocationSize = 500)
     @Column(name = "id")
     private Long id;
 
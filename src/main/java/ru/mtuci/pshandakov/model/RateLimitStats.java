@@ -0,0 +1,18 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class RateLimitStats {
+
+    private String policy;
+    private String rules;
+    private long allowed;
+    private long rejected;
+    private long trackedKeys;
+
+}
@@ -1,6 +1,5 @@
 package ru.mtuci.pshandakov.model;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -12,9 +11,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import ru.mtuci.pshandakov.utils.SignatureUtil;
 
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SignatureException;
+import java.security.GeneralSecurityException;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.UUID;
@@ -47,11 +44,23 @@ public class Ticket {
 
     private String detail;
 
+    private String keyId;
+
     private String digitalSignature;
 
     public static Ticket createTicket(Long userId, boolean isBlocked, Date expirationDate, String detail)
-            throws NoSuchAlgorithmException, SignatureException, InvalidKeyException, JsonProcessingException {
-        var ticket = Ticket.builder()
+            throws GeneralSecurityException {
+        var ticket = prepareTicket(userId, isBlocked, expirationDate, detail);
+        ticket.sign();
+        return ticket;
+    }
+
+    /**
+     * Тикет без подписи: для случаев, когда поля дополняются перед подписью через {@link #sign()}.
+     */
+    public static Ticket prepareTicket(Long userId, boolean isBlocked, Date expirationDate, String detail)
+            throws GeneralSecurityException {
+        return Ticket.builder()
                 .serverDate(LocalDateTime.now())
                 .ticketLifetime(2)
                 .activationDate(new Date())
@@ -59,10 +68,12 @@ public class Ticket {
                 .userId(userId)
                 .isBlocked(isBlocked)
                 .detail(detail)
+                .keyId(SignatureUtil.getKeyId())
                 .build();
+    }
 
-        ticket.setDigitalSignature(SignatureUtil.makeSignature(ticket));
-        return ticket;
+    public void sign() throws GeneralSecurityException {
+        setDigitalSignature(SignatureUtil.makeSignature(this));
     }
 
 }
@@ -0,0 +1,37 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.mtuci.pshandakov.utils.SignatureUtil;
+
+import java.security.GeneralSecurityException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ответ пакетной проверки лицензий: результаты по всем устройствам под одной подписью.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TicketEnvelope {
+
+    private LocalDateTime serverDate;
+
+    private Long userId;
+
+    private String keyId;
+
+    private List<LicenseCheckBatchItem> items;
+
+    private String digitalSignature;
+
+    public void sign() throws GeneralSecurityException {
+        setDigitalSignature(SignatureUtil.makeSignature(this));
+    }
+}
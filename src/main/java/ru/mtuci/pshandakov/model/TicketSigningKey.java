@@ -0,0 +1,34 @@
+package ru.mtuci.pshandakov.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TicketSigningKey {
+
+    public static final String STATUS_ACTIVE = "active";
+    public static final String STATUS_RETIRED = "retired";
+
+    private String kid;
+    private String kty;
+    private String crv;
+    private String alg;
+    private String use;
+
+    private String n;
+    private String e;
+    private String x;
+    private String y;
+
+    private String status;
+    private Instant createdAt;
+    private Instant retiredAt;
+
+}
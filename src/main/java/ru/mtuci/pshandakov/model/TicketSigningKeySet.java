@@ -0,0 +1,16 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class TicketSigningKeySet {
+
+    private List<TicketSigningKey> keys;
+
+}
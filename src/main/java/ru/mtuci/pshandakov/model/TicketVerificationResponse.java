@@ -0,0 +1,16 @@
+package ru.mtuci.pshandakov.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class TicketVerificationResponse {
+
+    private boolean valid;
+    private String keyId;
+    private String message;
+
+}
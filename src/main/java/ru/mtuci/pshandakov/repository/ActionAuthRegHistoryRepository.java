@@ -4,7 +4,11 @@ import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface ActionAuthRegHistoryRepository extends JpaRepository<ActionAuthRegHistory, Long> {
 
+    List<ActionAuthRegHistory> findByEmailAndTimeActionBetweenOrderByTimeAction(String email, LocalDateTime from, LocalDateTime to);
 }
@@ -2,7 +2,11 @@ package ru.mtuci.pshandakov.repository;
 
 import ru.mtuci.pshandakov.model.ApplicationUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -11,4 +15,14 @@ public interface ApplicationUserRepository extends JpaRepository<ApplicationUser
     Optional<ApplicationUser> findByEmail(String email);
 
     Optional<ApplicationUser> findByUsername(String username);
+
+    /**
+     * Заменяет хеш пароля, только если он не менялся с момента проверки. Возвращает число измененных строк (0 или 1).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ApplicationUser u set u.password = :newPassword where u.email = :email and u.password = :oldPassword")
+    int replacePassword(@Param("email") String email,
+                        @Param("oldPassword") String oldPassword,
+                        @Param("newPassword") String newPassword);
 }
@@ -1,8 +1,14 @@
 package ru.mtuci.pshandakov.repository;
 
 import ru.mtuci.pshandakov.model.DeviceLicense;
+import ru.mtuci.pshandakov.model.DeviceLicenseIndexView;
+import ru.mtuci.pshandakov.model.LicenseCheckView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DeviceLicenseRepository extends JpaRepository<DeviceLicense, Long> {
@@ -14,4 +20,32 @@ public interface DeviceLicenseRepository extends JpaRepository<DeviceLicense, Lo
 
     Optional<DeviceLicense> findByDeviceIdAndLicenseId(Long deviceId, Long licenseId);
 
+    /**
+     * Проверка лицензии одним запросом: устройство, привязка и лицензия без загрузки связанных сущностей.
+     */
+    @Query("select l.id as licenseId, d.id as deviceId, u.id as userId, l.endingDate as endingDate " +
+            "from DeviceLicense dl join dl.device d join dl.license l left join l.user u " +
+            "where d.macAddress = :macAddress and d.name = :name")
+    Optional<LicenseCheckView> findCheckView(@Param("macAddress") String macAddress, @Param("name") String name);
+
+    @Query("select l.id as licenseId, d.id as deviceId, u.id as userId, l.endingDate as endingDate, " +
+            "d.macAddress as macAddress, d.name as deviceName " +
+            "from DeviceLicense dl join dl.device d join dl.license l left join l.user u")
+    List<DeviceLicenseIndexView> findAllIndexViews();
+
+    @Query("select l.id as licenseId, d.id as deviceId, u.id as userId, l.endingDate as endingDate, " +
+            "d.macAddress as macAddress, d.name as deviceName " +
+            "from DeviceLicense dl join dl.device d join dl.license l left join l.user u where l.id = :licenseId")
+    List<DeviceLicenseIndexView> findIndexViewsByLicenseId(@Param("licenseId") Long licenseId);
+
+    @Query("select l.id as licenseId, d.id as deviceId, u.id as userId, l.endingDate as endingDate, " +
+            "d.macAddress as macAddress, d.name as deviceName " +
+            "from DeviceLicense dl join dl.device d join dl.license l left join l.user u where d.id = :deviceId")
+    List<DeviceLicenseIndexView> findIndexViewsByDeviceId(@Param("deviceId") Long deviceId);
+
+    @Query("select l.id as licenseId, d.id as deviceId, u.id as userId, l.endingDate as endingDate, " +
+            "d.macAddress as macAddress, d.name as deviceName " +
+            "from DeviceLicense dl join dl.device d join dl.license l left join l.user u where d.macAddress in :macAddresses")
+    List<DeviceLicenseIndexView> findIndexViewsByMacAddresses(@Param("macAddresses") Collection<String> macAddresses);
+
 }
@@ -2,6 +2,8 @@ package ru.mtuci.pshandakov.repository;
 
 import ru.mtuci.pshandakov.model.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DeviceRepository extends JpaRepository<Device, Long> {
@@ -11,5 +13,7 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
 
     Optional<Device> findByMacAddressAndName(String macAddress, String deviceName);
     boolean existsByMacAddress(String macAddress);
+
+    List<Device> findByMacAddressIn(Collection<String> macAddresses);
 }
 
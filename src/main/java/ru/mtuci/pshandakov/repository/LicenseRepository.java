@@ -1,13 +1,47 @@
 package ru.mtuci.pshandakov.repository;
 
+import ru.mtuci.pshandakov.model.ApplicationUser;
 import ru.mtuci.pshandakov.model.License;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface LicenseRepository extends JpaRepository<License, Long> {
     Optional<License> findByCode(String code);
 
+    @Query("select l.code from License l where l.code in :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
 
-}
+    /**
+     * Занимает одно место под устройство, если оно есть. Возвращает число измененных строк (0 или 1).
+     * Версия увеличивается, чтобы параллельные сохранения через JPA получили конфликт версий.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update License l set l.deviceCount = l.deviceCount - 1, l.version = l.version + 1 " +
+            "where l.id = :id and l.deviceCount > 0")
+    int reserveSeat(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update License l set l.deviceCount = l.deviceCount + 1, l.version = l.version + 1 where l.id = :id")
+    int releaseSeat(@Param("id") Long id);
 
+    /**
+     * Первая активация: срабатывает только для лицензии, которая еще не была активирована.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update License l set l.firstActivationDate = :activationDate, l.endingDate = :endingDate, " +
+            "l.user = :user, l.version = l.version + 1 " +
+            "where l.id = :id and l.firstActivationDate is null")
+    int activateFirst(@Param("id") Long id, @Param("user") ApplicationUser user,
+                      @Param("activationDate") Date activationDate, @Param("endingDate") Date endingDate);
+}
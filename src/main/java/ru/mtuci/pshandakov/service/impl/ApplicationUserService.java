@@ -16,17 +16,32 @@ import java.util.Optional;
 public class ApplicationUserService {
 
     private final ApplicationUserRepository userRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserCacheService userCacheService;
 
     public List<ApplicationUser> getAllUsers() {
         return userRepository.findAll();
     }
 
+    /**
+     * Пользователь из кэша: отсоединенная копия без списка лицензий, только для чтения.
+     */
     public Optional<ApplicationUser> getUserById(Long id) {
+        return userCacheService.getById(id, () -> userRepository.findById(id));
+    }
+
+    /**
+     * Пользователь из БД, минуя кэш.
+     */
+    public Optional<ApplicationUser> findUserById(Long id) {
         return id == null ? Optional.empty() : userRepository.findById(id);
     }
 
+    /**
+     * Пользователь из кэша: отсоединенная копия без списка лицензий, только для чтения.
+     */
     public Optional<ApplicationUser> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userCacheService.getByEmail(email, () -> userRepository.findByEmail(email));
     }
 
     public Optional<ApplicationUser> getUserByUsername(String username) {
@@ -36,6 +51,8 @@ public class ApplicationUserService {
     public void deleteUser(Long id) {
         if (id != null) {
             userRepository.deleteById(id);
+            tokenRevocationService.revoke(id);
+            userCacheService.evict(id);
         }
     }
 
@@ -52,7 +69,7 @@ public class ApplicationUserService {
             return Optional.empty();
         }
 
-        var userToUpdate = this.getUserById(user.getId());
+        var userToUpdate = this.findUserById(user.getId());
 
         if (userToUpdate.isPresent()) {
             if (user.getEmail() != null) {
@@ -71,7 +88,11 @@ public class ApplicationUserService {
                 userToUpdate.get().setLicenses(user.getLicenses());
             }
 
-            return Optional.of(this.saveUser(userToUpdate.get()));
+            ApplicationUser saved = this.saveUser(userToUpdate.get());
+            // email и роль зашиты в выданные токены
+            tokenRevocationService.revoke(saved.getId());
+            userCacheService.evict(saved.getId());
+            return Optional.of(saved);
         }
 
         return Optional.empty();
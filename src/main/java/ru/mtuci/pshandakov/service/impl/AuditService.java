@@ -0,0 +1,213 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронная запись журнала действий в {@link AuditSink}.
+ * Записи складываются в ограниченную очередь и пишутся фоновым потоком пакетами:
+ * пакет уходит при наборе audit.batch-size записей или по истечении audit.flush-interval.
+ * При переполнении очереди поведение задает audit.overflow-policy:
+ * BLOCK — вызывающий поток ждет места в очереди не дольше audit.offer-timeout, затем запись отбрасывается;
+ * DROP — запись отбрасывается сразу. Пока поток записи не запущен или уже остановлен, места в очереди не ждут.
+ * Записи приводятся к ограничениям таблицы при постановке в очередь, а пакет, который не удалось записать,
+ * повторяется по одной записи: ошибочная запись не уносит с собой остальные записи пакета.
+ * При остановке приложения поток записи прерывается, после его завершения очередь дописывается полностью.
+ * Метрики: audit.queue.size, audit.dropped и audit.write — время записи пакета по исходу (outcome).
+ */
+@Service
+@Slf4j
+public class AuditService {
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    private final AuditSink auditSink;
+    private final BlockingQueue<ActionAuthRegHistory> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+
+    /**
+     * Длина строковых колонок action_auth_reg_history.
+     */
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Timer writeSuccessTimer;
+    private final Timer writeErrorTimer;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AuditService(AuditSink auditSink,
+                        @Value("${audit.queue-capacity:10000}") int queueCapacity,
+                        @Value("${audit.batch-size:200}") int batchSize,
+                        @Value("${audit.flush-interval:PT1S}") Duration flushInterval,
+                        @Value("${audit.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                        @Value("${audit.offer-timeout:PT1S}") Duration offerTimeout,
+                        MeterRegistry meterRegistry) {
+        this.auditSink = auditSink;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+
+        Gauge.builder("audit.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        FunctionCounter.builder("audit.dropped", dropped, AtomicLong::get).register(meterRegistry);
+        this.writeSuccessTimer = Timer.builder("audit.write").tag("outcome", "success").register(meterRegistry);
+        this.writeErrorTimer = Timer.builder("audit.write").tag("outcome", "error").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // поток допишет свой пакет и завершится; до этого хранилище из другого потока не трогаем
+        running = false;
+        writer.interrupt();
+        writer.join();
+
+        List<ActionAuthRegHistory> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += batchSize) {
+            flush(rest.subList(from, Math.min(rest.size(), from + batchSize)));
+        }
+        log.info("Журнал действий записан при остановке, записей: {}, отброшено за время работы: {}", rest.size(), dropped.get());
+    }
+
+    /**
+     * Ставит запись в очередь на запись. Время действия фиксируется вызывающим.
+     */
+    public void record(ActionAuthRegHistory entry) {
+        if (entry == null) {
+            return;
+        }
+        normalize(entry);
+
+        boolean queued;
+        try {
+            // без работающего потока записи место в очереди не освободится
+            queued = overflowPolicy == OverflowPolicy.DROP || !running
+                    ? queue.offer(entry)
+                    : queue.offer(entry, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            log.warn("Запись журнала действий отброшена: поток прерван");
+            return;
+        }
+
+        if (!queued) {
+            long total = dropped.incrementAndGet();
+            log.warn("Очередь журнала действий переполнена, запись отброшена (всего отброшено: {}): {}", total, entry.getDescription());
+        }
+    }
+
+    /**
+     * Записи пользователя за период. Записи, еще не покинувшие очередь, не возвращаются.
+     */
+    public List<ActionAuthRegHistory> find(String email, LocalDateTime from, LocalDateTime to) {
+        return auditSink.find(email, from, to);
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        List<ActionAuthRegHistory> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+
+        while (running) {
+            try {
+                ActionAuthRegHistory entry = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (entry != null) {
+                    batch.add(entry);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // остановка: флаг не восстанавливаем, чтобы дописать пакет без прерванного ввода-вывода
+                break;
+            }
+
+            if (batch.size() >= batchSize || System.nanoTime() - deadline >= 0) {
+                flush(batch);
+                batch.clear();
+                deadline = System.nanoTime() + flushIntervalNanos;
+            }
+        }
+
+        flush(batch);
+    }
+
+    private void flush(List<ActionAuthRegHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            auditSink.write(batch);
+            writeSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        } catch (Exception e) {
+            writeErrorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("Не удалось записать пакет журнала действий ({} записей), запись по одной: {}", batch.size(), e.getMessage());
+        }
+
+        for (ActionAuthRegHistory entry : batch) {
+            try {
+                auditSink.write(List.of(entry));
+            } catch (Exception e) {
+                dropped.incrementAndGet();
+                log.error("Запись журнала действий отброшена: {}: {}", entry.getDescription(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Приводит запись к ограничениям таблицы: обязательные поля заполняются, длинные строки обрезаются.
+     */
+    private static void normalize(ActionAuthRegHistory entry) {
+        entry.setEmail(truncate(entry.getEmail() != null ? entry.getEmail() : ""));
+        entry.setUsername(truncate(entry.getUsername()));
+        entry.setDescription(truncate(entry.getDescription() != null ? entry.getDescription() : ""));
+        entry.setActionType(truncate(entry.getActionType()));
+        if (entry.getTimeAction() == null) {
+            entry.setTimeAction(LocalDateTime.now());
+        }
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= MAX_COLUMN_LENGTH ? value : value.substring(0, MAX_COLUMN_LENGTH);
+    }
+}
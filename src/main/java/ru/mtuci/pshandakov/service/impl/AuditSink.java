@@ -0,0 +1,23 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Хранилище журнала действий. Реализация выбирается свойством audit.sink (jdbc | file).
+ */
+public interface AuditSink {
+
+    /**
+     * Записывает пакет целиком или не записывает ничего. Вызовы не пересекаются: их делает поток записи
+     * {@link AuditService}, а после его завершения — поток остановки приложения.
+     */
+    void write(List<ActionAuthRegHistory> batch);
+
+    /**
+     * Записи пользователя с временем действия в [from, to], по возрастанию времени.
+     */
+    List<ActionAuthRegHistory> find(String email, LocalDateTime from, LocalDateTime to);
+}
@@ -14,7 +14,6 @@ import ru.mtuci.pshandakov.model.AuthenticationRequest;
 import ru.mtuci.pshandakov.model.AuthenticationResponse;
 import ru.mtuci.pshandakov.model.RegistrationRequest;
 import ru.mtuci.pshandakov.model.RegistrationResponse;
-import ru.mtuci.pshandakov.repository.ActionAuthRegHistoryRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -32,7 +31,7 @@ import java.time.LocalDateTime;
 @Slf4j
 public class AuthenticationService {
 
-    private final ActionAuthRegHistoryRepository actionAuthRegHistoryRepository;
+    private final AuditService auditService;
 
     private final ApplicationUserService applicationUserService;
     private final AuthenticationManager authenticationManager;
@@ -50,7 +49,7 @@ public class AuthenticationService {
                 .actionType(ActionAuthRegHistoryTypes.AUTH.getType())
                 .description(String.format("Неудачная попытка входа: email=%s , причина=%s", email, reason))
                 .build();
-        actionAuthRegHistoryRepository.save(historyEntry);
+        auditService.record(historyEntry);
         log.warn("Неудачная попытка входа: email={}, reason={}", email, reason);
     }
 
@@ -62,7 +61,7 @@ public class AuthenticationService {
                 .description(description)
                 .actionType(ActionAuthRegHistoryTypes.REG.getType())
                 .build();
-        actionAuthRegHistoryRepository.save(historyEntry);
+        auditService.record(historyEntry);
         log.warn("Попытка регистрации: email={}, description={}", email, description);
     }
 
@@ -105,7 +104,7 @@ public class AuthenticationService {
 
             authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
             AuthenticationResponse response = AuthenticationResponse.builder()
-                    .token(jwtTokenProvider.createToken(email, user.getRole().getGrantedAuthorities()))
+                    .token(jwtTokenProvider.createToken(user))
                     .email(email)
                     .message(String.format("Добро пожаловать, %s!", user.getUsername()))
                     .build();
@@ -117,7 +116,7 @@ public class AuthenticationService {
                     .description("Успешный вход")
                     .actionType(ActionAuthRegHistoryTypes.AUTH.getType())
                     .build();
-            actionAuthRegHistoryRepository.save(historyEntry);
+            auditService.record(historyEntry);
 
             return response;
         } catch (UsernameNotFoundException ex) {
@@ -0,0 +1,227 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.model.DeviceLicenseIndexStats;
+import ru.mtuci.pshandakov.model.DeviceLicenseIndexView;
+import ru.mtuci.pshandakov.model.LicenseCheckRequest;
+import ru.mtuci.pshandakov.model.LicenseCheckView;
+import ru.mtuci.pshandakov.repository.DeviceLicenseRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Индекс (MAC-адрес, имя устройства) → привязка лицензии для проверки лицензии без обращения к БД.
+ * Прогревается при старте, обновляется в путях записи LicenseService и DeviceService
+ * и периодически перестраивается целиком. Промах индекса читает БД и кладет найденную строку в индекс,
+ * если за время чтения на этом узле не было удалений (иначе строка могла устареть).
+ * Изменения с других узлов видны не позже чем через licensing.index.max-age: запись старше считается
+ * промахом и перечитывается из БД, поэтому удаленная на другом узле привязка перестает проверяться
+ * и подписываться за это время, а не только при полном перестроении.
+ */
+@Service
+@Slf4j
+public class DeviceLicenseIndex {
+
+    private record DeviceKey(String macAddress, String name) {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry implements LicenseCheckView {
+        private final Long licenseId;
+        private final Long deviceId;
+        private final Long userId;
+        private final Date endingDate;
+        private final long loadedAtNanos;
+    }
+
+    private final DeviceLicenseRepository deviceLicenseRepository;
+    private final long maxAgeNanos;
+
+    private volatile Map<DeviceKey, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // увеличивается при каждом удалении: перестроение или загрузка промаха, начатые до удаления, не попадают в индекс
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public DeviceLicenseIndex(DeviceLicenseRepository deviceLicenseRepository,
+                              @Value("${licensing.index.max-age:PT30S}") Duration maxAge) {
+        this.deviceLicenseRepository = deviceLicenseRepository;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${licensing.index.refresh-interval:PT5M}", initialDelayString = "${licensing.index.refresh-interval:PT5M}")
+    public void rebuild() {
+        long invalidationsBefore = invalidations.get();
+        long loadedAt = System.nanoTime();
+        Map<DeviceKey, Entry> rebuilt = new ConcurrentHashMap<>();
+        for (DeviceLicenseIndexView view : deviceLicenseRepository.findAllIndexViews()) {
+            rebuilt.put(keyOf(view), entryOf(view, loadedAt));
+        }
+
+        if (invalidations.get() != invalidationsBefore) {
+            log.info("Перестроение индекса устройств пропущено: данные изменились во время загрузки");
+            return;
+        }
+
+        entries = rebuilt;
+        log.info("Индекс устройств перестроен, записей: {}", rebuilt.size());
+    }
+
+    public Optional<LicenseCheckView> find(String macAddress, String deviceName) {
+        DeviceKey key = new DeviceKey(macAddress, deviceName);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (isFresh(entry, now)) {
+            hits.incrementAndGet();
+            return Optional.of(entry);
+        }
+
+        misses.incrementAndGet();
+        long invalidationsBefore = invalidations.get();
+        Optional<LicenseCheckView> view = deviceLicenseRepository.findCheckView(macAddress, deviceName);
+        if (view.isEmpty()) {
+            if (entry != null) {
+                entries.remove(key, entry);
+            }
+        } else if (invalidations.get() == invalidationsBefore) {
+            entries.put(key, entryOf(view.get(), now));
+        }
+        return view;
+    }
+
+    /**
+     * Поиск набора устройств: попадания берутся из индекса, промахи читаются из БД одним запросом.
+     * Результат в порядке аргумента, для устройства без привязки — null.
+     */
+    public List<LicenseCheckView> findAll(List<LicenseCheckRequest> devices) {
+        List<LicenseCheckView> found = new ArrayList<>(devices.size());
+        Set<String> missingMacAddresses = new HashSet<>();
+        int missCount = 0;
+        long now = System.nanoTime();
+        for (LicenseCheckRequest device : devices) {
+            Entry entry = entries.get(new DeviceKey(device.getMacAddress(), device.getDeviceName()));
+            found.add(isFresh(entry, now) ? entry : null);
+            if (!isFresh(entry, now)) {
+                missingMacAddresses.add(device.getMacAddress());
+                missCount++;
+            }
+        }
+
+        hits.addAndGet(devices.size() - missCount);
+        misses.addAndGet(missCount);
+        if (missCount == 0) {
+            return found;
+        }
+
+        long invalidationsBefore = invalidations.get();
+        Map<DeviceKey, Entry> loaded = new HashMap<>();
+        for (DeviceLicenseIndexView view : deviceLicenseRepository.findIndexViewsByMacAddresses(missingMacAddresses)) {
+            loaded.put(keyOf(view), entryOf(view, now));
+        }
+        if (invalidations.get() == invalidationsBefore) {
+            entries.putAll(loaded);
+        }
+
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i) == null) {
+                LicenseCheckRequest device = devices.get(i);
+                DeviceKey key = new DeviceKey(device.getMacAddress(), device.getDeviceName());
+                Entry entry = loaded.get(key);
+                if (entry == null) {
+                    // привязки больше нет: устаревшая запись не должна дожидаться перестроения
+                    entries.computeIfPresent(key, (k, stale) -> isFresh(stale, now) ? stale : null);
+                }
+                found.set(i, entry);
+            }
+        }
+        return found;
+    }
+
+    public void put(String macAddress, String deviceName, Long licenseId, Long deviceId, Long userId, Date endingDate) {
+        entries.put(new DeviceKey(macAddress, deviceName), new Entry(licenseId, deviceId, userId, endingDate, System.nanoTime()));
+    }
+
+    /**
+     * Перечитывает из БД все привязки лицензии после ее изменения или удаления.
+     */
+    public void refreshLicense(Long licenseId) {
+        if (licenseId == null) {
+            return;
+        }
+
+        remove(entry -> licenseId.equals(entry.getLicenseId()));
+        deviceLicenseRepository.findIndexViewsByLicenseId(licenseId).forEach(this::put);
+    }
+
+    /**
+     * Перечитывает из БД привязки устройства после изменения его MAC-адреса, имени или удаления.
+     */
+    public void refreshDevice(Long deviceId) {
+        if (deviceId == null) {
+            return;
+        }
+
+        remove(entry -> deviceId.equals(entry.getDeviceId()));
+        deviceLicenseRepository.findIndexViewsByDeviceId(deviceId).forEach(this::put);
+    }
+
+    public DeviceLicenseIndexStats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        return DeviceLicenseIndexStats.builder()
+                .size(entries.size())
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRate(total == 0 ? 0.0 : (double) hitCount / total)
+                .build();
+    }
+
+    private void put(DeviceLicenseIndexView view) {
+        entries.put(keyOf(view), entryOf(view, System.nanoTime()));
+    }
+
+    private boolean isFresh(Entry entry, long now) {
+        return entry != null && now - entry.getLoadedAtNanos() < maxAgeNanos;
+    }
+
+    private void remove(Predicate<Entry> predicate) {
+        invalidations.incrementAndGet();
+        entries.values().removeIf(predicate);
+    }
+
+    private static DeviceKey keyOf(DeviceLicenseIndexView view) {
+        return new DeviceKey(view.getMacAddress(), view.getDeviceName());
+    }
+
+    private static Entry entryOf(LicenseCheckView view, long loadedAtNanos) {
+        return new Entry(view.getLicenseId(), view.getDeviceId(), view.getUserId(), view.getEndingDate(), loadedAtNanos);
+    }
+}
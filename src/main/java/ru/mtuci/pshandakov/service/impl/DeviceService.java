@@ -3,12 +3,15 @@ package ru.mtuci.pshandakov.service.impl;
 import lombok.RequiredArgsConstructor;
 import ru.mtuci.pshandakov.model.Device;
 import ru.mtuci.pshandakov.model.DeviceLicense;
-import ru.mtuci.pshandakov.model.License;
 import ru.mtuci.pshandakov.repository.DeviceLicenseRepository;
 import ru.mtuci.pshandakov.repository.DeviceRepository;
 import ru.mtuci.pshandakov.repository.LicenseRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,9 +22,16 @@ public class DeviceService {
     private final DeviceRepository deviceRepository;
     private final DeviceLicenseRepository deviceLicenseRepository;
     private final LicenseRepository licenseRepository;
+    private final TicketCacheService ticketCacheService;
+    private final DeviceLicenseIndex deviceLicenseIndex;
 
     public Device saveDevice(Device device) {
-        return deviceRepository.save(device);
+        boolean existing = device.getId() != null;
+        Device saved = deviceRepository.save(device);
+        if (existing) {
+            deviceLicenseIndex.refreshDevice(saved.getId());
+        }
+        return saved;
     }
 
 
@@ -38,11 +48,20 @@ public class DeviceService {
         return deviceRepository.findByMacAddressAndName(macAddress, deviceName);
     }
 
+    public List<Device> getDevicesByMacAddresses(Collection<String> macAddresses) {
+        return deviceRepository.findByMacAddressIn(macAddresses);
+    }
+
     public List<Device> getAllDevices() {
         return deviceRepository.findAll();
     }
 
 
+    /**
+     * Удаление привязки и освобождение места на лицензии — в одной транзакции. Кэши сбрасываются
+     * после фиксации: иначе параллельная проверка успела бы снова закэшировать еще не удаленную привязку.
+     */
+    @Transactional
     public void deleteDevice(Long id) {
         Optional<Device> deviceOpt = deviceRepository.findById(id);
 
@@ -51,14 +70,18 @@ public class DeviceService {
             Optional<DeviceLicense> deviceLicenseOpt = deviceLicenseRepository.findByDeviceId(id);
             if (deviceLicenseOpt.isPresent()) {
                 DeviceLicense deviceLicense = deviceLicenseOpt.get();
-                Optional<License> licenseOpt = licenseRepository.findById(deviceLicense.getLicense().getId());
-                License license = licenseOpt.get();
-                license.setDeviceCount(license.getDeviceCount() + 1);
-                licenseRepository.save(license);
                 deviceLicenseRepository.delete(deviceLicense);
+                licenseRepository.releaseSeat(deviceLicense.getLicense().getId());
             }
 
             deviceRepository.delete(device);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ticketCacheService.evictDevice(id);
+                    deviceLicenseIndex.refreshDevice(id);
+                }
+            });
         }
     }
 
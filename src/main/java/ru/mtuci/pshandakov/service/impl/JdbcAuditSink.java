@@ -0,0 +1,46 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
+import ru.mtuci.pshandakov.repository.ActionAuthRegHistoryRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Журнал действий в таблице action_auth_reg_history. Пакет вставляется в одной транзакции.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "audit.sink", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcAuditSink implements AuditSink {
+
+    private static final String INSERT_SQL = "insert into action_auth_reg_history " +
+            "(email, username, time_action, description, action_type) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ActionAuthRegHistoryRepository actionAuthRegHistoryRepository;
+
+    @Override
+    public void write(List<ActionAuthRegHistory> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                    ps.setString(1, entry.getEmail());
+                    ps.setString(2, entry.getUsername());
+                    ps.setTimestamp(3, Timestamp.valueOf(entry.getTimeAction()));
+                    ps.setString(4, entry.getDescription());
+                    ps.setString(5, entry.getActionType());
+                }));
+    }
+
+    @Override
+    public List<ActionAuthRegHistory> find(String email, LocalDateTime from, LocalDateTime to) {
+        return actionAuthRegHistoryRepository.findByEmailAndTimeActionBetweenOrderByTimeAction(email, from, to);
+    }
+}
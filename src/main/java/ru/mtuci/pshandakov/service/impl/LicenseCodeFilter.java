@@ -0,0 +1,94 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.model.LicenseCodeFilterStats;
+import ru.mtuci.pshandakov.utils.BloomFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отсев кодов лицензий до запроса к БД. Код с верной проверкой ({@link LicenseCodeGenerator#hasValidChecksum})
+ * выдан сервером и ищется в БД. Остальные коды ищутся, только если фильтр Блума кодов без проверки
+ * (выданных до ее введения, в том числе в произвольном формате) допускает их наличие. Новые коды без проверки
+ * не появляются ({@link LicenseService} их не принимает), поэтому фильтр одинаков на всех узлах
+ * и строится один раз при старте.
+ */
+@Service
+@Slf4j
+public class LicenseCodeFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LicenseCodeGenerator licenseCodeGenerator;
+    private final double falsePositiveRate;
+
+    // до первой загрузки пропускаются все коды
+    private volatile BloomFilter legacyCodes;
+    private volatile long legacyCodeCount;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+
+    public LicenseCodeFilter(JdbcTemplate jdbcTemplate,
+                             LicenseCodeGenerator licenseCodeGenerator,
+                             @Value("${licensing.code-filter.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.licenseCodeGenerator = licenseCodeGenerator;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<String> codes = new ArrayList<>();
+        jdbcTemplate.query("select code from licenses", rs -> {
+            String code = rs.getString(1);
+            if (!licenseCodeGenerator.hasValidChecksum(code)) {
+                codes.add(code);
+            }
+        });
+
+        BloomFilter filter = new BloomFilter(Math.max(1024, codes.size()), falsePositiveRate);
+        codes.forEach(filter::put);
+        legacyCodes = filter;
+        legacyCodeCount = codes.size();
+        log.info("Фильтр кодов лицензий без проверки построен, кодов: {}", codes.size());
+    }
+
+    /**
+     * false — лицензии с таким кодом точно нет, искать в БД не нужно.
+     */
+    public boolean mightExist(String code) {
+        boolean result = check(code);
+        (result ? passed : rejected).incrementAndGet();
+        return result;
+    }
+
+    public LicenseCodeFilterStats getStats() {
+        BloomFilter filter = legacyCodes;
+        return LicenseCodeFilterStats.builder()
+                .legacyCodes(legacyCodeCount)
+                .bitCount(filter != null ? filter.getBitCount() : 0)
+                .hashCount(filter != null ? filter.getHashCount() : 0)
+                .passed(passed.get())
+                .rejected(rejected.get())
+                .build();
+    }
+
+    private boolean check(String code) {
+        if (code == null || code.isBlank()) {
+            return false;
+        }
+        if (licenseCodeGenerator.hasValidChecksum(code)) {
+            return true;
+        }
+
+        BloomFilter filter = legacyCodes;
+        return filter == null || filter.mightContain(code);
+    }
+}
@@ -0,0 +1,251 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.repository.LicenseRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор кодов активации лицензий. Код — 26 случайных символов и 6 символов проверки
+ * (первые 30 бит HMAC-SHA256 от случайной части на ключе licensing.code.checksum-key),
+ * поэтому выданный код проверяется в памяти без обращения к БД ({@link #hasValidChecksum}).
+ * Коды берутся из пула, который фоновый поток пополняет,
+ * когда в нем остается меньше licensing.code-pool.refill-threshold кодов; уникальность
+ * пополнения проверяется одним запросом к licenses на пачку. Если пул пуст, недостающие коды
+ * генерируются и проверяются в вызывающем потоке. Окончательную уникальность гарантирует uk_licenses_code.
+ */
+@Service
+@Slf4j
+public class LicenseCodeGenerator {
+
+    public static final int CODE_LENGTH = 32;
+    public static final int CHECKSUM_LENGTH = 6;
+    public static final int BODY_LENGTH = CODE_LENGTH - CHECKSUM_LENGTH;
+
+    private static final char[] ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+    // 32 символа алфавита — ровно 5 бит на символ, без смещения распределения
+    private static final int BITS_PER_CHAR = 5;
+    private static final int BODY_BYTES = (BODY_LENGTH * BITS_PER_CHAR + Byte.SIZE - 1) / Byte.SIZE;
+    private static final int CHECKSUM_BYTES = (CHECKSUM_LENGTH * BITS_PER_CHAR + Byte.SIZE - 1) / Byte.SIZE;
+    private static final String CHECKSUM_ALGORITHM = "HmacSHA256";
+
+    private static final int[] CHAR_VALUES = new int[128];
+
+    static {
+        Arrays.fill(CHAR_VALUES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            CHAR_VALUES[ALPHABET[i]] = i;
+        }
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long RETRY_PARK_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final LicenseRepository licenseRepository;
+    private final SecureRandom random = new SecureRandom();
+    private final Mac checksumPrototype;
+    private final BlockingQueue<String> pool;
+    private final int refillThreshold;
+    private final int refillBatch;
+
+    private volatile boolean running;
+    private Thread filler;
+
+    public LicenseCodeGenerator(LicenseRepository licenseRepository,
+                                @Value("${licensing.code-pool.capacity:10000}") int capacity,
+                                @Value("${licensing.code-pool.refill-threshold:2000}") int refillThreshold,
+                                @Value("${licensing.code-pool.refill-batch:1000}") int refillBatch,
+                                @Value("${licensing.code.checksum-key:}") String checksumKey) throws GeneralSecurityException {
+        this.licenseRepository = licenseRepository;
+        this.checksumPrototype = Mac.getInstance(CHECKSUM_ALGORITHM);
+        this.checksumPrototype.init(new SecretKeySpec(checksumKeyBytes(checksumKey), CHECKSUM_ALGORITHM));
+        this.pool = new ArrayBlockingQueue<>(capacity);
+        this.refillThreshold = refillThreshold;
+        this.refillBatch = refillBatch;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        filler = new Thread(this::fillLoop, "license-code-pool");
+        filler.setDaemon(true);
+        filler.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (filler != null) {
+            LockSupport.unpark(filler);
+            filler.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public String nextCode() {
+        String code = pool.poll();
+        requestRefillIfLow();
+        return code != null ? code : generateUnique(1).get(0);
+    }
+
+    public List<String> nextCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        pool.drainTo(codes, count);
+        requestRefillIfLow();
+        if (codes.size() < count) {
+            codes.addAll(generateUnique(count - codes.size()));
+        }
+        return codes;
+    }
+
+    public int getPoolSize() {
+        return pool.size();
+    }
+
+    /**
+     * Случайная часть: 17 байт раскладываются по 5 бит прямо в char[], затем дописывается проверка.
+     */
+    public String generate() {
+        byte[] bytes = new byte[BODY_BYTES];
+        random.nextBytes(bytes);
+
+        char[] code = new char[CODE_LENGTH];
+        writeChars(bytes, code, 0, BODY_LENGTH);
+        writeChars(checksum(code), code, BODY_LENGTH, CHECKSUM_LENGTH);
+        return new String(code);
+    }
+
+    /**
+     * Длина, алфавит и символы проверки. Коды, выданные до введения проверки, ее не проходят.
+     */
+    public boolean hasValidChecksum(String code) {
+        if (!isWellFormed(code)) {
+            return false;
+        }
+
+        char[] chars = code.toCharArray();
+        char[] expected = new char[CHECKSUM_LENGTH];
+        writeChars(checksum(chars), expected, 0, CHECKSUM_LENGTH);
+
+        int diff = 0;
+        for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+            diff |= expected[i] ^ chars[BODY_LENGTH + i];
+        }
+        return diff == 0;
+    }
+
+    /**
+     * Длина и алфавит кода, общие для всех когда-либо выданных кодов.
+     */
+    public static boolean isWellFormed(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            char c = code.charAt(i);
+            if (c >= CHAR_VALUES.length || CHAR_VALUES[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] checksum(char[] code) {
+        byte[] body = new byte[BODY_LENGTH];
+        for (int i = 0; i < BODY_LENGTH; i++) {
+            body[i] = (byte) code[i];
+        }
+
+        try {
+            Mac mac = (Mac) checksumPrototype.clone();
+            return Arrays.copyOf(mac.doFinal(body), CHECKSUM_BYTES);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Реализация " + CHECKSUM_ALGORITHM + " не поддерживает клонирование", e);
+        }
+    }
+
+    private static void writeChars(byte[] bytes, char[] target, int offset, int count) {
+        int buffer = 0;
+        int bits = 0;
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            if (bits < BITS_PER_CHAR) {
+                buffer = (buffer << Byte.SIZE) | (bytes[next++] & 0xFF);
+                bits += Byte.SIZE;
+            }
+            bits -= BITS_PER_CHAR;
+            target[offset + i] = ALPHABET[(buffer >>> bits) & 0x1F];
+        }
+    }
+
+    /**
+     * Ключ обязателен: со случайным ключом процесса коды, выданные другими узлами, не проходили бы проверку.
+     */
+    private static byte[] checksumKeyBytes(String checksumKey) {
+        if (checksumKey == null || checksumKey.isBlank()) {
+            throw new IllegalStateException("Не задан licensing.code.checksum-key (LICENSE_CODE_CHECKSUM_KEY): " +
+                    "ключ символов проверки кодов активации должен быть одинаковым на всех узлах");
+        }
+        return checksumKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Коды, не повторяющиеся ни между собой, ни с уже выданными: совпадения с БД проверяются одним запросом.
+     */
+    private List<String> generateUnique(int count) {
+        Set<String> codes = new LinkedHashSet<>();
+        while (codes.size() < count) {
+            while (codes.size() < count) {
+                codes.add(generate());
+            }
+            licenseRepository.findExistingCodes(codes).forEach(codes::remove);
+        }
+        return new ArrayList<>(codes);
+    }
+
+    private void requestRefillIfLow() {
+        Thread thread = filler;
+        if (thread != null && pool.size() < refillThreshold) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void fillLoop() {
+        while (running) {
+            if (pool.size() >= refillThreshold) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                while (running && pool.remainingCapacity() > 0) {
+                    for (String code : generateUnique(Math.min(refillBatch, pool.remainingCapacity()))) {
+                        pool.offer(code);
+                    }
+                }
+                log.debug("Пул кодов лицензий пополнен, кодов: {}", pool.size());
+            } catch (Exception e) {
+                log.warn("Не удалось пополнить пул кодов лицензий: {}", e.getMessage());
+                LockSupport.parkNanos(this, RETRY_PARK_NANOS);
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import ru.mtuci.pshandakov.repository.LicenseHistoryRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -23,4 +24,8 @@ public class LicenseHistoryService {
         history.setDescription(description);
         licenseHistoryRepository.save(history);
     }
+
+    public void recordLicenseChanges(List<LicenseHistory> history) {
+        licenseHistoryRepository.saveAll(history);
+    }
 }
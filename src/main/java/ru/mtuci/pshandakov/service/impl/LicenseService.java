@@ -2,11 +2,17 @@ package ru.mtuci.pshandakov.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ru.mtuci.pshandakov.model.ApplicationUser;
 import ru.mtuci.pshandakov.model.License;
 import ru.mtuci.pshandakov.repository.LicenseRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +22,9 @@ import java.util.Optional;
 public class LicenseService {
 
     private final LicenseRepository licenseRepository;
+    private final TicketCacheService ticketCacheService;
+    private final DeviceLicenseIndex deviceLicenseIndex;
+    private final LicenseCodeGenerator licenseCodeGenerator;
 
     @GetMapping
     public List<License> getAllLicenses() {
@@ -30,19 +39,99 @@ public class LicenseService {
         return licenseRepository.findByCode(code);
     }
 
+    /**
+     * Без кода лицензии он генерируется. Код, заданный вручную, должен быть в формате генератора
+     * с верными символами проверки, иначе его отсеет {@link LicenseCodeFilter}.
+     */
     public License createLicense(License license) {
+        if (license.getCode() == null || license.getCode().isBlank()) {
+            license.setCode(licenseCodeGenerator.nextCode());
+        } else {
+            checkCode(license.getCode());
+        }
         return licenseRepository.save(license);
     }
 
+    /**
+     * Новые лицензии вставляются JDBC-пакетами при сбросе контекста: идентификаторы выдаются
+     * блоками из id_sequences и известны сразу после вызова.
+     */
+    public List<License> createLicenses(List<License> licenses) {
+        return licenseRepository.saveAll(licenses);
+    }
+
+    /**
+     * Версия обязательна: лицензия пишется целиком, включая deviceCount, поэтому запись поверх
+     * версии, которую клиент не видел, потеряла бы параллельное изменение. Несовпадение версии —
+     * {@link OptimisticLockingFailureException}.
+     */
     public Optional<License> updateLicense(License license) {
         if (license == null || license.getId() == null) {
             return Optional.empty();
         }
 
-        return Optional.of(licenseRepository.save(license));
+        Optional<License> existing = licenseRepository.findById(license.getId());
+        if (existing.isPresent()) {
+            if (license.getVersion() == null) {
+                throw new IllegalArgumentException("Не указана версия лицензии: передайте version, полученную при ее чтении");
+            }
+            if (!license.getVersion().equals(existing.get().getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(License.class, license.getId());
+            }
+            if (license.getCode() == null) {
+                license.setCode(existing.get().getCode());
+            } else if (!license.getCode().equals(existing.get().getCode())) {
+                // прежний код сохраняется как есть, даже если выдан до введения символов проверки
+                checkCode(license.getCode());
+            }
+        }
+
+        License saved = licenseRepository.save(license);
+        ticketCacheService.evictLicense(saved.getId());
+        deviceLicenseIndex.refreshLicense(saved.getId());
+        return Optional.of(saved);
+    }
+
+    private void checkCode(String code) {
+        if (!licenseCodeGenerator.hasValidChecksum(code)) {
+            throw new IllegalArgumentException("Код лицензии должен быть выдан генератором кодов: " +
+                    "оставьте поле code пустым, чтобы получить новый код");
+        }
+    }
+
+    /**
+     * Атомарно занимает место под устройство. false — свободных мест нет.
+     */
+    public boolean reserveSeat(Long id) {
+        return licenseRepository.reserveSeat(id) == 1;
+    }
+
+    public void releaseSeat(Long id) {
+        licenseRepository.releaseSeat(id);
+    }
+
+    /**
+     * Атомарно выполняет первую активацию. false — лицензия уже была активирована другим запросом.
+     * Вызывается в транзакции занятия места: кэши сбрасываются после ее фиксации.
+     */
+    public boolean activateFirst(License license, ApplicationUser user, Date activationDate, Date endingDate) {
+        boolean activated = licenseRepository.activateFirst(license.getId(), user, activationDate, endingDate) == 1;
+        if (activated) {
+            Long id = license.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ticketCacheService.evictLicense(id);
+                    deviceLicenseIndex.refreshLicense(id);
+                }
+            });
+        }
+        return activated;
     }
 
     public void deleteLicense(Long id) {
         licenseRepository.deleteById(id);
+        ticketCacheService.evictLicense(id);
+        deviceLicenseIndex.refreshLicense(id);
     }
 }
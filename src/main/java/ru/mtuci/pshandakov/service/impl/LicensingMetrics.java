@@ -0,0 +1,89 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import ru.mtuci.pshandakov.exception.LicenseException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймеры операций лицензирования: licensing.operation — операция целиком, licensing.stage — ее этапы
+ * (поиск в БД, генерация кода, сохранение, подпись и т. д.). Теги: operation, stage, outcome
+ * (success | rejected — {@link LicenseException} | error), status — HTTP-статус исхода, exception — класс ошибки.
+ * Гистограммы для p99 включаются management.metrics.distribution.percentiles-histogram.licensing.
+ */
+@Component
+public class LicensingMetrics {
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String CHECK = "check";
+    public static final String CHECK_BATCH = "check_batch";
+    public static final String ACTIVATE = "activate";
+    public static final String BULK_CREATE = "bulk_create";
+
+    private static final String OPERATION_TIMER = "licensing.operation";
+    private static final String STAGE_TIMER = "licensing.stage";
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    private final MeterRegistry registry;
+
+    public LicensingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T, E extends Exception> T operation(String operation, Call<T, E> call) throws E {
+        return record(OPERATION_TIMER, Tags.of("operation", operation), call);
+    }
+
+    public <T, E extends Exception> T stage(String operation, String stage, Call<T, E> call) throws E {
+        return record(STAGE_TIMER, Tags.of("operation", operation, "stage", stage), call);
+    }
+
+    public <E extends Exception> void stage(String operation, String stage, Action<E> action) throws E {
+        record(STAGE_TIMER, Tags.of("operation", operation, "stage", stage), () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T, E extends Exception> T record(String name, Tags tags, Call<T, E> call) throws E {
+        long start = System.nanoTime();
+        Exception failure = null;
+        try {
+            return call.call();
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            Timer.builder(name)
+                    .tags(tags.and(outcomeTags(failure)))
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Tags outcomeTags(Exception failure) {
+        if (failure == null) {
+            return Tags.of("outcome", "success", "status", String.valueOf(HttpStatus.OK.value()), "exception", "none");
+        }
+        if (failure instanceof LicenseException licenseException) {
+            return Tags.of("outcome", "rejected", "status", String.valueOf(licenseException.getHttpStatus().value()),
+                    "exception", failure.getClass().getSimpleName());
+        }
+        return Tags.of("outcome", "error", "status", String.valueOf(HttpStatus.INTERNAL_SERVER_ERROR.value()),
+                "exception", failure.getClass().getSimpleName());
+    }
+}
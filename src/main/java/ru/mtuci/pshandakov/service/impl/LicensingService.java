@@ -1,5 +1,6 @@
 package ru.mtuci.pshandakov.service.impl;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.mtuci.pshandakov.exception.LicenseException;
@@ -10,27 +11,39 @@ import ru.mtuci.pshandakov.model.ApplicationUser;
 import ru.mtuci.pshandakov.model.Device;
 import ru.mtuci.pshandakov.model.DeviceLicense;
 import ru.mtuci.pshandakov.model.License;
+import ru.mtuci.pshandakov.model.LicenseBulkCreateRequest;
+import ru.mtuci.pshandakov.model.LicenseBulkCreation;
 import ru.mtuci.pshandakov.model.LicenseActivationRequest;
+import ru.mtuci.pshandakov.model.LicenseCheckBatchItem;
+import ru.mtuci.pshandakov.model.LicenseCheckView;
 import ru.mtuci.pshandakov.model.LicenseCheckRequest;
 import ru.mtuci.pshandakov.model.LicenseCreateRequest;
 import ru.mtuci.pshandakov.model.LicenseCreateResponse;
+import ru.mtuci.pshandakov.model.LicenseHistory;
 import ru.mtuci.pshandakov.model.LicenseResponse;
 import ru.mtuci.pshandakov.model.LicenseType;
 import ru.mtuci.pshandakov.model.LicenseUpdateRequest;
 import ru.mtuci.pshandakov.model.Product;
 import ru.mtuci.pshandakov.model.Ticket;
-import ru.mtuci.pshandakov.repository.ActionAuthRegHistoryRepository;
+import ru.mtuci.pshandakov.model.TicketEnvelope;
 import ru.mtuci.pshandakov.repository.DeviceLicenseRepository;
 import ru.mtuci.pshandakov.utils.DateTimeUtil;
+import ru.mtuci.pshandakov.utils.SignatureUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.security.SecureRandom;
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,11 +56,29 @@ public class LicensingService {
     private final LicenseService licenseService;
     private final LicenseHistoryService licenseHistoryService;
     private final DeviceService deviceService;
+    private final TicketCacheService ticketCacheService;
 
-    private final ActionAuthRegHistoryRepository actionAuthRegHistoryRepository;
+    private final AuditService auditService;
 
     private final DeviceLicenseRepository deviceLicenseRepository;
 
+    private final TransactionTemplate transactionTemplate;
+    private final DeviceLicenseIndex deviceLicenseIndex;
+    private final LicenseCodeGenerator licenseCodeGenerator;
+    private final LicenseCodeFilter licenseCodeFilter;
+    private final LicensingMetrics metrics;
+
+    private final EntityManager entityManager;
+
+    @Value("${licensing.check.batch.max-size:100}")
+    private int maxCheckBatchSize;
+
+    @Value("${licensing.bulk.max-count:100000}")
+    private int maxBulkCount;
+
+    @Value("${licensing.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
     private void logLicensing(String email, String username, String description, String action) {
         ActionAuthRegHistory historyEntry = new ActionAuthRegHistory();
         historyEntry.setEmail(email);
@@ -55,7 +86,7 @@ public class LicensingService {
         historyEntry.setTimeAction(LocalDateTime.now());
         historyEntry.setDescription(description);
         historyEntry.setActionType(action);
-        actionAuthRegHistoryRepository.save(historyEntry);
+        auditService.record(historyEntry);
     }
 
     private void logLicensing(String email, String username, String description) {
@@ -107,6 +138,11 @@ public class LicensingService {
     }
 
     private License licenseCheck(String licenseCode, boolean createTicket) throws LicenseException {
+        if (!licenseCodeFilter.mightExist(licenseCode)) {
+            log.debug("Код лицензии отклонен без запроса к БД: {}", licenseCode);
+            throw new LicenseException("Недействительный ключ лицензии", true);
+        }
+
         var license = licenseService.getLicenseByCode(licenseCode);
 
         if (license.isEmpty()) {
@@ -124,30 +160,23 @@ public class LicensingService {
         }
     }
 
-    private String generateActivationCode() {
-        final int codeLength = 32;
-        final String allowedChars = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
-
-        SecureRandom random = new SecureRandom();
-        return random.ints(allowedChars.length(), 0, allowedChars.length())
-                .limit(codeLength)
-                .mapToObj(i -> String.valueOf(allowedChars.charAt(i)))
-                .collect(Collectors.joining());
+    public LicenseCreateResponse createLicense(ApplicationUser user, LicenseCreateRequest requestData) throws Exception {
+        return metrics.operation(LicensingMetrics.CREATE, () -> doCreateLicense(user, requestData));
     }
 
-    public LicenseCreateResponse createLicense(ApplicationUser user, LicenseCreateRequest requestData) throws Exception {
+    private LicenseCreateResponse doCreateLicense(ApplicationUser user, LicenseCreateRequest requestData) throws Exception {
         if (user == null) {
             throw new UserEmptyException();
         }
 
         try {
-            var product = productCheck(user, requestData.getProductId(), false);
-            var owner = ownerCheck(requestData.getOwnerId(), false);
-            var licenseType = licenseTypeCheck(requestData.getLicenseTypeId(), false);
+            var product = metrics.stage(LicensingMetrics.CREATE, "product", () -> productCheck(user, requestData.getProductId(), false));
+            var owner = metrics.stage(LicensingMetrics.CREATE, "owner", () -> ownerCheck(requestData.getOwnerId(), false));
+            var licenseType = metrics.stage(LicensingMetrics.CREATE, "license_type", () -> licenseTypeCheck(requestData.getLicenseTypeId(), false));
 
             log.info("Создание новой лицензии...");
             License newLicense = new License();
-            newLicense.setCode(generateActivationCode());
+            newLicense.setCode(metrics.stage(LicensingMetrics.CREATE, "code", licenseCodeGenerator::nextCode));
             log.info("Активационный код сгенерирован: {}", newLicense.getCode());
 
             newLicense.setOwner(owner);
@@ -160,12 +189,13 @@ public class LicensingService {
             newLicense.setDescription(requestData.getDescription() != null ? requestData.getDescription() : "Лицензия успешно создана: " + user.getUsername());
 
             log.info("Сохранение лицензии в базе данных...");
-            licenseService.createLicense(newLicense);
+            metrics.stage(LicensingMetrics.CREATE, "save", () -> licenseService.createLicense(newLicense));
             log.info("Лицензия успешно сохранена в базе данных с ID: {}", newLicense.getId());
 
             String description = "Лицензия создана";
             Date changeDate = DateTimeUtil.convertLocalDateToDate(LocalDate.now());
-            licenseHistoryService.recordLicenseChange(newLicense.getId(), owner.getId(), "Создана", changeDate, description);
+            metrics.stage(LicensingMetrics.CREATE, "history",
+                    () -> licenseHistoryService.recordLicenseChange(newLicense.getId(), owner.getId(), "Создана", changeDate, description));
             log.info("Запись изменений лицензии в историю завершена");
             logLicensing(user.getEmail(), user.getUsername(), "Лицензия была создана: " + user.getUsername());
 
@@ -181,13 +211,110 @@ public class LicensingService {
         }
     }
 
+    /**
+     * Проверки пакетного создания: продукт, владелец и тип читаются один раз на весь пакет.
+     */
+    public LicenseBulkCreation prepareBulkCreation(ApplicationUser user, LicenseBulkCreateRequest requestData) throws Exception {
+        if (user == null) {
+            throw new UserEmptyException();
+        }
+
+        try {
+            if (requestData.getCount() == null || requestData.getCount() <= 0) {
+                throw new LicenseException("Количество лицензий должно быть положительным", false);
+            }
+            if (requestData.getCount() > maxBulkCount) {
+                throw new LicenseException(String.format("За один запрос можно создать не более %d лицензий", maxBulkCount), false);
+            }
+
+            var product = productCheck(user, requestData.getProductId(), false);
+            var owner = ownerCheck(requestData.getOwnerId(), false);
+            var licenseType = licenseTypeCheck(requestData.getLicenseTypeId(), false);
+            String description = requestData.getDescription() != null
+                    ? requestData.getDescription()
+                    : "Лицензия успешно создана: " + user.getUsername();
+
+            return new LicenseBulkCreation(user, product, owner, licenseType, requestData.getDeviceCount(), description, requestData.getCount());
+        } catch (LicenseException e) {
+            log.error("Ошибка при пакетном создании лицензий: {}", e.getMessage());
+            logLicensing(user.getEmail(), user.getUsername(), "Ошибка пакетного создания лицензий: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Создает лицензии частями по licensing.bulk.chunk-size: каждая часть (лицензии и записи истории)
+     * сохраняется пакетными вставками в своей транзакции, после фиксации ее коды передаются в codeSink.
+     * При ошибке уже переданные части остаются созданными.
+     */
+    public int createLicenses(LicenseBulkCreation creation, Consumer<List<String>> codeSink) {
+        ApplicationUser user = creation.getUser();
+        Date changeDate = DateTimeUtil.convertLocalDateToDate(LocalDate.now());
+        int created = 0;
+
+        try {
+            while (created < creation.getCount()) {
+                List<String> codes = licenseCodeGenerator.nextCodes(Math.min(bulkChunkSize, creation.getCount() - created));
+                metrics.stage(LicensingMetrics.BULK_CREATE, "chunk",
+                        () -> transactionTemplate.executeWithoutResult(status -> saveLicenses(creation, codes, changeDate)));
+                created += codes.size();
+                codeSink.accept(codes);
+            }
+        } catch (RuntimeException e) {
+            log.error("Ошибка при пакетном создании лицензий, создано {} из {}: {}", created, creation.getCount(), e.getMessage(), e);
+            logLicensing(user.getEmail(), user.getUsername(),
+                    String.format("Ошибка пакетного создания лицензий: создано %d из %d: %s", created, creation.getCount(), e.getMessage()));
+            throw e;
+        }
+
+        log.info("Пакетно создано лицензий: {}", created);
+        logLicensing(user.getEmail(), user.getUsername(), String.format("Пакетно создано лицензий: %d", created));
+        return created;
+    }
+
+    private void saveLicenses(LicenseBulkCreation creation, List<String> codes, Date changeDate) {
+        List<License> licenses = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            License license = new License();
+            license.setCode(code);
+            license.setOwner(creation.getOwner());
+            license.setProduct(creation.getProduct());
+            license.setLicenseType(creation.getLicenseType());
+            license.setBlocked(false);
+            license.setDeviceCount(creation.getDeviceCount());
+            license.setDescription(creation.getDescription());
+            licenses.add(license);
+        }
+        licenseService.createLicenses(licenses);
+
+        List<LicenseHistory> history = new ArrayList<>(licenses.size());
+        for (License license : licenses) {
+            LicenseHistory entry = new LicenseHistory();
+            entry.setLicenseId(license.getId());
+            entry.setUserId(creation.getOwner().getId());
+            entry.setStatus("Создана");
+            entry.setChangeDate(changeDate);
+            entry.setDescription("Лицензия создана");
+            history.add(entry);
+        }
+        licenseHistoryService.recordLicenseChanges(history);
+
+        // при open-in-view контекст персистентности живет весь запрос: не копим в нем созданные сущности
+        entityManager.flush();
+        entityManager.clear();
+    }
+
     public LicenseResponse updateLicense(ApplicationUser user, LicenseUpdateRequest requestData) throws Exception {
+        return metrics.operation(LicensingMetrics.UPDATE, () -> doUpdateLicense(user, requestData));
+    }
+
+    private LicenseResponse doUpdateLicense(ApplicationUser user, LicenseUpdateRequest requestData) throws Exception {
         if (user == null) {
             throw new UserEmptyException();
         }
 
         try {
-            License license = licenseCheck(requestData.getCode(), true);
+            License license = metrics.stage(LicensingMetrics.UPDATE, "license", () -> licenseCheck(requestData.getCode(), true));
 
             if (license.getFirstActivationDate() == null) {
                 logLicensing(user.getEmail(), user.getUsername(), "Ошибка обновления лицензии: Лицензия еще активирована");
@@ -231,12 +358,13 @@ public class LicensingService {
             license.setEndingDate(newExpirationDate);
             license.setDuration(newDuration);
 
-            licenseService.updateLicense(license);
+            metrics.stage(LicensingMetrics.UPDATE, "save", () -> licenseService.updateLicense(license));
             String resp = String.format("Лицензия с кодом %s продлена до: %s", requestData.getCode(), newExpirationDate);
             log.info(resp);
-            Ticket ticket = Ticket.createTicket(license.getOwner().getId(), false, newExpirationDate, resp);
+            Ticket ticket = Ticket.prepareTicket(license.getOwner().getId(), false, newExpirationDate, resp);
 
-            Optional<DeviceLicense> deviceLicenseOpt = deviceLicenseRepository.findByLicenseId(license.getId());
+            Optional<DeviceLicense> deviceLicenseOpt = metrics.stage(LicensingMetrics.UPDATE, "device_license",
+                    () -> deviceLicenseRepository.findByLicenseId(license.getId()));
             Date activationDate = null;
             Long deviceId = null;
             String deviceMessage = null;
@@ -256,6 +384,7 @@ public class LicensingService {
                 logLicensing(user.getEmail(), user.getUsername(), "Лицензия успешно продлена | " + deviceMessage);
             }
 
+            metrics.stage(LicensingMetrics.UPDATE, "sign", ticket::sign);
             logLicensing(user.getEmail(), user.getUsername(), "Лицензия успешно продлена");
             return LicenseResponse.builder()
                     .ticket(ticket)
@@ -298,32 +427,53 @@ public class LicensingService {
         return deviceLicense.get();
     }
 
+    /**
+     * Основной путь проверки — один запрос с проекцией. Если строки нет, прежние проверки
+     * определяют, чего именно не хватает, и формируют ту же ошибку, что и раньше.
+     */
+    private LicenseCheckView licenseCheckView(ApplicationUser user, String macAddress, String deviceName) throws LicenseException {
+        Optional<LicenseCheckView> view = deviceLicenseIndex.find(macAddress, deviceName);
+        if (view.isPresent()) {
+            return view.get();
+        }
+
+        Device device = deviceCheck(user, macAddress, deviceName);
+        deviceLicenseCheck(user, device.getId());
+        // привязка появилась между запросами
+        return deviceLicenseRepository.findCheckView(macAddress, deviceName)
+                .orElseThrow(() -> new LicenseException("Лицензия для устройства не найдена", false, HttpStatus.NOT_FOUND));
+    }
+
     public LicenseResponse checkLicense(ApplicationUser user, LicenseCheckRequest requestData) throws Exception {
-        try {
-            Device device = deviceCheck(user, requestData.getMacAddress(), requestData.getDeviceName());
-            log.info("Устройство найдено: {}", device);
+        return metrics.operation(LicensingMetrics.CHECK, () -> doCheckLicense(user, requestData));
+    }
 
-            DeviceLicense deviceLicense = deviceLicenseCheck(user, device.getId());
-            Optional<License> licenseOptional = licenseService.getLicenseById(deviceLicense.getLicense().getId());
+    private LicenseResponse doCheckLicense(ApplicationUser user, LicenseCheckRequest requestData) throws Exception {
+        try {
+            LicenseCheckView view = metrics.stage(LicensingMetrics.CHECK, "lookup",
+                    () -> licenseCheckView(user, requestData.getMacAddress(), requestData.getDeviceName()));
+            log.info("Лицензия с ID {} найдена для устройства с ID {}", view.getLicenseId(), view.getDeviceId());
 
-            if (licenseOptional.isPresent()) {
+            Optional<Ticket> cachedTicket = metrics.stage(LicensingMetrics.CHECK, "ticket_cache",
+                    () -> ticketCacheService.getTicket(view.getLicenseId(), view.getDeviceId()));
+            if (cachedTicket.isPresent()) {
                 logLicensing(user.getEmail(), user.getUsername(), "Успешная проверка лицензии");
+                log.info("Тикет с подтверждением лицензии из кэша: {}", cachedTicket.get());
+                return LicenseResponse.builder().ticket(cachedTicket.get()).build();
+            }
 
-                String resp = "Лицензия активирована на устройстве. " + deviceLicense.getLicense().getId();
+            logLicensing(user.getEmail(), user.getUsername(), "Успешная проверка лицензии");
 
-                License license = licenseOptional.get();
-                Ticket ticket = Ticket.createTicket(license.getUser().getId(), false, license.getEndingDate(), resp);
-                ticket.setDeviceId(deviceLicense.getDevice().getId());
+            String resp = "Лицензия активирована на устройстве. " + view.getLicenseId();
 
-                log.info("Тикет с подтверждением лицензии: {}", ticket);
+            Ticket ticket = Ticket.prepareTicket(view.getUserId(), false, view.getEndingDate(), resp);
+            ticket.setDeviceId(view.getDeviceId());
+            metrics.stage(LicensingMetrics.CHECK, "sign", ticket::sign);
+            ticketCacheService.putTicket(view.getLicenseId(), view.getDeviceId(), ticket);
 
-                return LicenseResponse.builder().ticket(ticket).build();
-            } else {
-                log.error("Лицензия с ID {} не найдена", deviceLicense.getLicense().getId());
-                Ticket ticket = Ticket.createTicket(null, true, null, "Лицензия не найдена");
-                logLicensing(user.getEmail(), user.getUsername(), "Ошибка проверки лицензии: попытка найти несуществующую лицензию");
-                return LicenseResponse.builder().ticket(ticket).build();
-            }
+            log.info("Тикет с подтверждением лицензии: {}", ticket);
+
+            return LicenseResponse.builder().ticket(ticket).build();
 
         } catch (LicenseException e) {
             log.error("Произошла ошибка при проверке лицензии: {}", e.getMessage());
@@ -336,6 +486,92 @@ public class LicensingService {
         }
     }
 
+    /**
+     * Пакетная проверка: привязки всех устройств находятся индексом и одним запросом к БД для промахов,
+     * тикеты не подписываются по отдельности — весь ответ подписывается один раз.
+     * Ошибка по отдельному устройству не прерывает пакет и возвращается в его элементе.
+     */
+    public TicketEnvelope checkLicenses(ApplicationUser user, List<LicenseCheckRequest> requests) throws Exception {
+        return metrics.operation(LicensingMetrics.CHECK_BATCH, () -> doCheckLicenses(user, requests));
+    }
+
+    private TicketEnvelope doCheckLicenses(ApplicationUser user, List<LicenseCheckRequest> requests) throws Exception {
+        if (user == null) {
+            throw new UserEmptyException();
+        }
+        if (requests == null || requests.isEmpty()) {
+            throw new LicenseException("Список устройств для проверки пуст");
+        }
+        if (requests.size() > maxCheckBatchSize) {
+            throw new LicenseException(String.format("В одном запросе можно проверить не более %d устройств", maxCheckBatchSize));
+        }
+
+        try {
+            List<LicenseCheckView> views = metrics.stage(LicensingMetrics.CHECK_BATCH, "lookup", () -> deviceLicenseIndex.findAll(requests));
+            Set<String> knownDevices = null;
+            List<LicenseCheckBatchItem> items = new ArrayList<>(requests.size());
+            int succeeded = 0;
+
+            for (int i = 0; i < requests.size(); i++) {
+                LicenseCheckRequest request = requests.get(i);
+                LicenseCheckView view = views.get(i);
+                LicenseCheckBatchItem.LicenseCheckBatchItemBuilder item = LicenseCheckBatchItem.builder()
+                        .macAddress(request.getMacAddress())
+                        .deviceName(request.getDeviceName());
+
+                if (view != null) {
+                    Ticket ticket = Ticket.prepareTicket(view.getUserId(), false, view.getEndingDate(),
+                            "Лицензия активирована на устройстве. " + view.getLicenseId());
+                    ticket.setDeviceId(view.getDeviceId());
+                    items.add(item.status(HttpStatus.OK.value()).ticket(ticket).build());
+                    succeeded++;
+                    continue;
+                }
+
+                if (knownDevices == null) {
+                    knownDevices = metrics.stage(LicensingMetrics.CHECK_BATCH, "devices", () -> findKnownDevices(requests, views));
+                }
+                String message = knownDevices.contains(request.getMacAddress() + '\n' + request.getDeviceName())
+                        ? "Лицензия для устройства не найдена"
+                        : "Устройство не найдено";
+                items.add(item.status(HttpStatus.NOT_FOUND.value()).message(message).build());
+            }
+
+            TicketEnvelope envelope = TicketEnvelope.builder()
+                    .serverDate(LocalDateTime.now())
+                    .userId(user.getId())
+                    .keyId(SignatureUtil.getKeyId())
+                    .items(items)
+                    .build();
+            metrics.stage(LicensingMetrics.CHECK_BATCH, "sign", envelope::sign);
+
+            logLicensing(user.getEmail(), user.getUsername(),
+                    String.format("Пакетная проверка лицензий: успешно %d из %d", succeeded, requests.size()));
+            log.info("Пакетная проверка лицензий: успешно {} из {}", succeeded, requests.size());
+            return envelope;
+        } catch (Exception e) {
+            log.error("Произошла ошибка при пакетной проверке лицензий: {}", e.getMessage());
+            logLicensing(user.getEmail(), user.getUsername(), "Ошибка пакетной проверки лицензий: " + e.getMessage());
+            throw new LicenseException("Ошибка проверки: " + e.getMessage(), true);
+        }
+    }
+
+    /**
+     * Существующие устройства среди тех, для которых привязка не найдена: одним запросом по MAC-адресам.
+     */
+    private Set<String> findKnownDevices(List<LicenseCheckRequest> requests, List<LicenseCheckView> views) {
+        Set<String> macAddresses = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (views.get(i) == null) {
+                macAddresses.add(requests.get(i).getMacAddress());
+            }
+        }
+
+        return deviceService.getDevicesByMacAddresses(macAddresses).stream()
+                .map(device -> device.getMacAddress() + '\n' + device.getName())
+                .collect(Collectors.toSet());
+    }
+
     private License licenseCheck(String licenseCode, ApplicationUser userRequest, boolean createTicket) throws LicenseException {
         var license = licenseCheck(licenseCode, createTicket);
 
@@ -349,19 +585,79 @@ public class LicensingService {
         return license;
     }
 
-    public synchronized LicenseResponse activateLicense(ApplicationUser user, LicenseActivationRequest activationRequest) throws Exception {
-        try {
-            License license = licenseCheck(activationRequest.getCode(), user, false);
+    private enum SeatReservation { RESERVED, NO_SEATS, OWNED_BY_OTHER }
+
+    /**
+     * Занимает место на лицензии под устройство одним условным UPDATE и сохраняет привязку
+     * в той же транзакции, поэтому блокировки на уровне приложения не нужны. Первая активация
+     * (владелец, дата начала и окончания) выполняется там же после занятия места и откатывается вместе с ним.
+     * Возвращает лицензию, перечитанную после фиксации.
+     */
+    private License reserveDeviceSeat(ApplicationUser user, LicenseActivationRequest activationRequest, License license, Device device) throws LicenseException {
+        Optional<DeviceLicense> existingDeviceLicenseOptional = deviceLicenseRepository.findByDeviceIdAndLicenseId(device.getId(), license.getId());
+
+        if (existingDeviceLicenseOptional.isPresent()) {
+            logLicensing(user.getEmail(), user.getUsername(), "Ошибка активации лицензии: уже имеется активная лицензия на данном устройстве");
+            log.warn("Лицензия {} уже активирована на устройстве с ID {}", activationRequest.getCode(), device.getId());
+            throw new LicenseException("Лицензия уже активирована на данном устройстве");
+        }
 
-            if (license.getFirstActivationDate() == null) {
-                license.setFirstActivationDate(DateTimeUtil.convertLocalDateToDate(LocalDate.now()));
-                int duration = license.getLicenseType().getDefaultDuration();
-                LocalDate endingLocalDate = LocalDate.now().plusDays(duration);
-                license.setEndingDate(DateTimeUtil.convertLocalDateToDate(endingLocalDate));
-                license.setUser(user);
+        boolean firstActivation = license.getFirstActivationDate() == null;
+        int duration = license.getLicenseType().getDefaultDuration();
+        Date activationDate = DateTimeUtil.convertLocalDateToDate(LocalDate.now());
+        Date endingDate = DateTimeUtil.convertLocalDateToDate(LocalDate.now().plusDays(duration));
+
+        SeatReservation reservation = transactionTemplate.execute(status -> {
+            if (!licenseService.reserveSeat(license.getId())) {
+                return SeatReservation.NO_SEATS;
             }
 
-            Optional<Device> existingDevice = deviceService.getDeviceByMacAddressAndName(activationRequest.getMacAddress(), activationRequest.getDeviceName());
+            if (firstActivation && !licenseService.activateFirst(license, user, activationDate, endingDate)) {
+                // лицензию параллельно активировал другой пользователь: место откатывается
+                log.info("Лицензия с кодом {} уже активирована параллельным запросом", activationRequest.getCode());
+                ApplicationUser owner = licenseService.getLicenseById(license.getId()).map(License::getUser).orElse(null);
+                if (owner == null || !owner.getEmail().equals(user.getEmail())) {
+                    status.setRollbackOnly();
+                    return SeatReservation.OWNED_BY_OTHER;
+                }
+            }
+
+            DeviceLicense deviceLicense = new DeviceLicense();
+            deviceLicense.setLicense(license);
+            deviceLicense.setDevice(device);
+            deviceLicense.setActivationDate(new Date());
+            deviceLicenseRepository.save(deviceLicense);
+            return SeatReservation.RESERVED;
+        });
+
+        if (reservation == SeatReservation.OWNED_BY_OTHER) {
+            logLicensing(user.getEmail(), user.getUsername(), "Ошибка активации лицензии: некорректный email");
+            throw new LicenseException("Ошибка", false);
+        }
+        if (reservation != SeatReservation.RESERVED) {
+            log.warn("Для лицензии с кодом {} нет доступных мест для активации", activationRequest.getCode());
+            logLicensing(user.getEmail(), user.getUsername(), "Ошибка активации лицензии: превышен лимит количества устройств на лицензии");
+            throw new LicenseException("Превышен лимит количества устройств на лицензии");
+        }
+
+        log.info("Лицензия {} активирована на устройстве с ID {}", activationRequest.getCode(), device.getId());
+        log.info("Количество доступных мест для активации на лицензии с кодом {} уменьшено на 1", activationRequest.getCode());
+
+        // перечитываем лицензию: первая активация назначила владельца и даты
+        return licenseCheck(activationRequest.getCode(), user, false);
+    }
+
+    public LicenseResponse activateLicense(ApplicationUser user, LicenseActivationRequest activationRequest) throws Exception {
+        return metrics.operation(LicensingMetrics.ACTIVATE, () -> doActivateLicense(user, activationRequest));
+    }
+
+    private LicenseResponse doActivateLicense(ApplicationUser user, LicenseActivationRequest activationRequest) throws Exception {
+        try {
+            License checkedLicense = metrics.stage(LicensingMetrics.ACTIVATE, "license",
+                    () -> licenseCheck(activationRequest.getCode(), user, false));
+
+            Optional<Device> existingDevice = metrics.stage(LicensingMetrics.ACTIVATE, "device",
+                    () -> deviceService.getDeviceByMacAddressAndName(activationRequest.getMacAddress(), activationRequest.getDeviceName()));
             if (existingDevice.isPresent()) {
                 if (deviceService.isMacAddressExists(activationRequest.getMacAddress()) && deviceService.isDeviceExists(activationRequest.getMacAddress(), activationRequest.getDeviceName())) {
                     log.error("Устройство с MAC-адресом {} и именем {} уже существует", activationRequest.getMacAddress(), activationRequest.getDeviceName());
@@ -389,41 +685,22 @@ public class LicensingService {
                     throw new LicenseException("Устройство с таким MAC-адресом уже существует");
                 }
                 device.setName(activationRequest.getDeviceName());
-                device.setUserId(license.getUser().getId());
-                deviceService.saveDevice(device);
+                // чужую лицензию licenseCheck уже отклонил: владелец — сам пользователь
+                device.setUserId(user.getId());
+                metrics.stage(LicensingMetrics.ACTIVATE, "device_save", () -> deviceService.saveDevice(device));
                 logLicensing(user.getEmail(), user.getUsername(), "Добавление новых устройств в лицензию");
                 log.info("Устройство с MAC-адресом {} и именем {} зарегистрировано", activationRequest.getMacAddress(), activationRequest.getDeviceName());
             }
 
-
-            if (license.getDeviceCount() <= 0) {
-                log.warn("Для лицензии с кодом {} нет доступных мест для активации", activationRequest.getCode());
-                logLicensing(user.getEmail(), user.getUsername(), "Ошибка активации лицензии: превышен лимит количества устройств на лицензии");
-                throw new LicenseException("Превышен лимит количества устройств на лицензии");
-            }
-
-            Optional<DeviceLicense> existingDeviceLicenseOptional = deviceLicenseRepository.findByDeviceIdAndLicenseId(device.getId(), license.getId());
-
-            if (existingDeviceLicenseOptional.isPresent()) {
-                logLicensing(user.getEmail(), user.getUsername(), "Ошибка активации лицензии: уже имеется активная лицензия на данном устройстве");
-                log.warn("Лицензия {} уже активирована на устройстве с ID {}", activationRequest.getCode(), device.getId());
-                throw new LicenseException("Лицензия уже активирована на данном устройстве");
-            }
-
-            DeviceLicense deviceLicense = new DeviceLicense();
-            deviceLicense.setLicense(license);
-            deviceLicense.setDevice(device);
-            deviceLicense.setActivationDate(new Date());
-            deviceLicenseRepository.save(deviceLicense);
-            log.info("Лицензия {} активирована на устройстве с ID {}", activationRequest.getCode(), device.getId());
-
-            license.setDeviceCount(license.getDeviceCount() - 1);
-            licenseService.updateLicense(license);
-            log.info("Количество доступных мест для активации на лицензии с кодом {} уменьшено на 1", activationRequest.getCode());
+            License license = metrics.stage(LicensingMetrics.ACTIVATE, "seat",
+                    () -> reserveDeviceSeat(user, activationRequest, checkedLicense, device));
+            deviceLicenseIndex.put(device.getMacAddress(), device.getName(), license.getId(), device.getId(),
+                    license.getUser().getId(), license.getEndingDate());
 
             String description = "Лицензия активирована на устройстве " + device.getName();
             Date changeDate = new Date();
-            licenseHistoryService.recordLicenseChange(license.getId(), license.getUser().getId(), "Активирована", changeDate, description);
+            metrics.stage(LicensingMetrics.ACTIVATE, "history",
+                    () -> licenseHistoryService.recordLicenseChange(license.getId(), license.getUser().getId(), "Активирована", changeDate, description));
             log.info("Запись изменений лицензии в историю завершена");
             logLicensing(user.getEmail(), user.getUsername(), "Успешная активация лицензии с ID: " + license.getId());
 
@@ -0,0 +1,348 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал действий в локальных файлах-сегментах только на дозапись, без MySQL.
+ * Сегмент отображается в память целиком (audit.file.segment-size), записи дописываются последовательно;
+ * когда запись не помещается, открывается следующий сегмент. Сегменты старше audit.file.retention удаляются.
+ *
+ * <pre>
+ * сегмент: i32 magic, i32 версия, i64 время открытия (мс, локальное время как UTC), затем записи
+ * запись:  i32 длина данных, i32 CRC32 данных, данные
+ * данные:  i64,i32 timeAction (секунды, наносекунды), str email, str username, str description, str actionType
+ * </pre>
+ * str — i32 длина в байтах UTF-8 (-1 для null), затем байты. Нулевая длина записи — конец данных сегмента.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "audit.sink", havingValue = "file")
+public class MappedFileAuditSink implements AuditSink {
+
+    private static final int MAGIC = 0x41554431;
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration retention;
+
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private final CRC32 crc = new CRC32();
+
+    private Path activePath;
+    private long activeSequence;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+
+    public MappedFileAuditSink(@Value("${audit.file.directory:audit}") String directory,
+                               @Value("${audit.file.segment-size:64MB}") DataSize segmentSize,
+                               @Value("${audit.file.retention:P30D}") Duration retention) {
+        this.directory = Path.of(directory);
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments();
+
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        activePath = last;
+        activeSequence = sequenceOf(last);
+        activeChannel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, activeChannel.size());
+        activeBuffer.position(endOfRecords(activeBuffer));
+        log.info("Журнал действий: дозапись в сегмент {} с позиции {}", last, activeBuffer.position());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeBuffer.force();
+            activeChannel.close();
+            activeChannel = null;
+        }
+    }
+
+    @Override
+    public synchronized void write(List<ActionAuthRegHistory> batch) {
+        long startSequence = activeSequence;
+        int startPosition = activeBuffer.position();
+        try {
+            for (ActionAuthRegHistory entry : batch) {
+                append(entry);
+            }
+            activeBuffer.force();
+        } catch (IOException | RuntimeException e) {
+            // откат пакета: дописанные байты обнуляются целиком, иначе следующая запись другой длины
+            // оставила бы за собой откаченные записи видимыми для чтения и для endOfRecords;
+            // записи, попавшие в предыдущий сегмент до смены сегмента, остаются
+            if (activeBuffer != null) {
+                int rollbackPosition = activeSequence == startSequence ? startPosition : SEGMENT_HEADER_SIZE;
+                for (int i = rollbackPosition; i < activeBuffer.position(); i++) {
+                    activeBuffer.put(i, (byte) 0);
+                }
+                activeBuffer.position(rollbackPosition);
+            }
+            if (e instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    @Override
+    public List<ActionAuthRegHistory> find(String email, LocalDateTime from, LocalDateTime to) {
+        List<ActionAuthRegHistory> result = new ArrayList<>();
+        try {
+            List<Path> segments = listSegments();
+            for (int i = 0; i < segments.size(); i++) {
+                // записи сегмента сделаны до открытия следующего, поэтому он целиком старше from, если следующий открыт раньше from
+                if (i + 1 < segments.size() && openedAt(segments.get(i + 1)).isBefore(from)) {
+                    continue;
+                }
+                scanSegment(segments.get(i), email, from, to, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        result.sort((a, b) -> a.getTimeAction().compareTo(b.getTimeAction()));
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${audit.file.retention-check-interval:PT1H}")
+    public void applyRetention() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        try {
+            List<Path> segments = listSegments();
+            // последний сегмент активный; сегмент удаляется, когда следующий за ним открыт до границы хранения
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (!openedAt(segments.get(i + 1)).isBefore(cutoff)) {
+                    break;
+                }
+                Files.deleteIfExists(segments.get(i));
+                log.info("Удален сегмент журнала действий {}", segments.get(i));
+            }
+        } catch (IOException e) {
+            log.error("Ошибка удаления старых сегментов журнала действий: {}", e.getMessage(), e);
+        }
+    }
+
+    private void append(ActionAuthRegHistory entry) throws IOException {
+        ByteBuffer payload = encode(entry);
+        int length = payload.remaining();
+        if (RECORD_HEADER_SIZE + length > segmentSize - SEGMENT_HEADER_SIZE) {
+            log.error("Запись журнала действий ({} байт) больше сегмента и не будет сохранена", length);
+            return;
+        }
+
+        if (activeBuffer.remaining() < RECORD_HEADER_SIZE + length) {
+            rotate();
+        }
+
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+
+        int position = activeBuffer.position();
+        activeBuffer.put(position + RECORD_HEADER_SIZE, payload.array(), 0, length);
+        activeBuffer.putInt(position + 4, (int) crc.getValue());
+        // длина пишется последней: читатель не увидит запись до того, как она записана целиком
+        activeBuffer.putInt(position, length);
+        activeBuffer.position(position + RECORD_HEADER_SIZE + length);
+    }
+
+    private void rotate() throws IOException {
+        close();
+        openSegment(activeSequence + 1);
+        log.info("Журнал действий: открыт новый сегмент {}", activePath);
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        activeSequence = sequence;
+        activePath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(activePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        activeBuffer.putInt(MAGIC);
+        activeBuffer.putInt(FORMAT_VERSION);
+        activeBuffer.putLong(LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private void scanSegment(Path segment, String email, LocalDateTime from, LocalDateTime to,
+                             List<ActionAuthRegHistory> result) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                log.warn("Пропущен файл журнала действий с неизвестным форматом: {}", segment);
+                return;
+            }
+
+            CRC32 checksum = new CRC32();
+            int position = SEGMENT_HEADER_SIZE;
+            while (position + RECORD_HEADER_SIZE <= buffer.limit()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.limit()) {
+                    break;
+                }
+
+                ByteBuffer payload = buffer.slice(position + RECORD_HEADER_SIZE, length);
+                checksum.reset();
+                checksum.update(payload.duplicate());
+                if ((int) checksum.getValue() != buffer.getInt(position + 4)) {
+                    break;
+                }
+
+                ActionAuthRegHistory entry = decode(payload);
+                if (email.equals(entry.getEmail())
+                        && !entry.getTimeAction().isBefore(from) && !entry.getTimeAction().isAfter(to)) {
+                    result.add(entry);
+                }
+                position += RECORD_HEADER_SIZE + length;
+            }
+        }
+    }
+
+    /**
+     * Позиция после последней целой записи: конец данных или первая поврежденная запись.
+     */
+    private static int endOfRecords(ByteBuffer buffer) {
+        CRC32 checksum = new CRC32();
+        int position = SEGMENT_HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.limit()) {
+                break;
+            }
+
+            checksum.reset();
+            checksum.update(buffer.slice(position + RECORD_HEADER_SIZE, length));
+            if ((int) checksum.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private ByteBuffer encode(ActionAuthRegHistory entry) {
+        byte[] email = bytesOf(entry.getEmail());
+        byte[] username = bytesOf(entry.getUsername());
+        byte[] description = bytesOf(entry.getDescription());
+        byte[] actionType = bytesOf(entry.getActionType());
+
+        int size = 12 + 16 + lengthOf(email) + lengthOf(username) + lengthOf(description) + lengthOf(actionType);
+        if (scratch.capacity() < size) {
+            scratch = ByteBuffer.allocate(Math.max(size, scratch.capacity() * 2));
+        }
+
+        scratch.clear();
+        LocalDateTime time = entry.getTimeAction();
+        scratch.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        scratch.putInt(time.getNano());
+        putString(scratch, email);
+        putString(scratch, username);
+        putString(scratch, description);
+        putString(scratch, actionType);
+        return scratch.flip();
+    }
+
+    private static ActionAuthRegHistory decode(ByteBuffer payload) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        return ActionAuthRegHistory.builder()
+                .timeAction(time)
+                .email(getString(payload))
+                .username(getString(payload))
+                .description(getString(payload))
+                .actionType(getString(payload))
+                .build();
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int lengthOf(byte[] value) {
+        return value != null ? value.length : 0;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static LocalDateTime openedAt(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            channel.read(header, 0);
+            long millis = header.getLong(8);
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.exception.RateLimitExceededException;
+import ru.mtuci.pshandakov.model.RateLimitStats;
+import ru.mtuci.pshandakov.utils.TokenBucket;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Ограничение частоты запросов корзинами токенов в памяти процесса. Для каждой политики (эндпоинта)
+ * задается набор правил вида ip:30/PT1M,email:10/PT1M — не более 30 запросов в минуту с одного IP
+ * и 10 на один email, с равномерным восполнением. Запрос проходит, только если токен выдали все правила;
+ * при отказе токены, уже взятые по другим правилам, возвращаются.
+ * Корзины хранятся в ограниченном кэше и удаляются после простоя дольше самого длинного периода,
+ * когда они все равно были бы полными.
+ */
+@Service
+@Slf4j
+public class RateLimitService {
+
+    public enum Policy {
+        LOGIN,
+        CHECK,
+        ACTIVATION
+    }
+
+    public enum KeyType {
+        IP,
+        EMAIL,
+        MAC
+    }
+
+    private record Rule(KeyType keyType, int capacity, Duration period) {
+
+        @Override
+        public String toString() {
+            return keyType.name().toLowerCase(Locale.ROOT) + ':' + capacity + '/' + period;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<Policy, List<Rule>> rules = new EnumMap<>(Policy.class);
+    private final Map<Policy, LongAdder> allowed = new EnumMap<>(Policy.class);
+    private final Map<Policy, LongAdder> rejected = new EnumMap<>(Policy.class);
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitService(@Value("${rate-limit.enabled:true}") boolean enabled,
+                            @Value("${rate-limit.max-keys:100000}") long maxKeys,
+                            @Value("${rate-limit.login:ip:30/PT1M,email:10/PT1M}") String login,
+                            @Value("${rate-limit.check:ip:600/PT1M,email:300/PT1M,mac:60/PT1M}") String check,
+                            @Value("${rate-limit.activation:ip:60/PT1M,email:20/PT1M,mac:10/PT1M}") String activation) {
+        this.enabled = enabled;
+        rules.put(Policy.LOGIN, parseRules(login));
+        rules.put(Policy.CHECK, parseRules(check));
+        rules.put(Policy.ACTIVATION, parseRules(activation));
+        for (Policy policy : Policy.values()) {
+            allowed.put(policy, new LongAdder());
+            rejected.put(policy, new LongAdder());
+        }
+
+        Duration longestPeriod = rules.values().stream()
+                .flatMap(List::stream)
+                .map(Rule::period)
+                .max(Duration::compareTo)
+                .orElse(Duration.ofMinutes(1));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(longestPeriod)
+                .build();
+    }
+
+    /**
+     * Берет токен по каждому правилу политики. Пустые ключи (например, email до входа) пропускаются.
+     *
+     * @throws RateLimitExceededException если хотя бы одна корзина пуста
+     */
+    public void check(Policy policy, String ip, String email, String macAddress) {
+        checkBatch(policy, ip, email, macAddress != null ? List.of(macAddress) : List.of());
+    }
+
+    /**
+     * Пакетный запрос стоит столько же, сколько отдельные запросы по каждому элементу: правила по IP и email
+     * берут по токену на элемент, правило по MAC — по токену на каждый элемент с этим адресом.
+     *
+     * @throws RateLimitExceededException если хотя бы одной корзине не хватает токенов
+     */
+    public void checkBatch(Policy policy, String ip, String email, List<String> macAddresses) {
+        if (!enabled) {
+            return;
+        }
+
+        Map<String, Integer> tokensByMac = new LinkedHashMap<>();
+        for (String macAddress : macAddresses) {
+            if (macAddress != null && !macAddress.isBlank()) {
+                tokensByMac.merge(macAddress.toUpperCase(Locale.ROOT), 1, Integer::sum);
+            }
+        }
+        int tokens = Math.max(1, macAddresses.size());
+
+        long now = System.nanoTime();
+        List<TokenBucket> taken = new ArrayList<>();
+        List<Integer> takenTokens = new ArrayList<>();
+        for (Rule rule : rules.get(policy)) {
+            if (rule.keyType() == KeyType.MAC) {
+                for (Map.Entry<String, Integer> mac : tokensByMac.entrySet()) {
+                    acquire(policy, rule, mac.getKey(), mac.getValue(), now, taken, takenTokens);
+                }
+                continue;
+            }
+
+            String value = rule.keyType() == KeyType.IP ? ip : email != null ? email.toLowerCase(Locale.ROOT) : null;
+            if (value != null && !value.isBlank()) {
+                acquire(policy, rule, value, tokens, now, taken, takenTokens);
+            }
+        }
+        allowed.get(policy).increment();
+    }
+
+    private void acquire(Policy policy, Rule rule, String value, int tokens, long now,
+                         List<TokenBucket> taken, List<Integer> takenTokens) {
+        TokenBucket bucket = buckets.get(policy.name() + '|' + rule.keyType() + '|' + value,
+                key -> new TokenBucket(rule.capacity(), rule.period(), now));
+        long waitNanos = bucket.tryAcquire(now, tokens);
+        if (waitNanos == 0) {
+            taken.add(bucket);
+            takenTokens.add(tokens);
+            return;
+        }
+
+        for (int i = 0; i < taken.size(); i++) {
+            taken.get(i).release(takenTokens.get(i));
+        }
+        rejected.get(policy).increment();
+        log.debug("Лимит {} превышен для {}={}", policy, rule.keyType(), value);
+        throw new RateLimitExceededException("Слишком много запросов, повторите позже",
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+    }
+
+    public List<RateLimitStats> getStats() {
+        Map<String, Long> keysByPolicy = buckets.asMap().keySet().stream()
+                .collect(Collectors.groupingBy(key -> key.substring(0, key.indexOf('|')), Collectors.counting()));
+
+        List<RateLimitStats> stats = new ArrayList<>();
+        for (Policy policy : Policy.values()) {
+            stats.add(RateLimitStats.builder()
+                    .policy(policy.name())
+                    .rules(rules.get(policy).stream().map(Rule::toString).collect(Collectors.joining(",")))
+                    .allowed(allowed.get(policy).sum())
+                    .rejected(rejected.get(policy).sum())
+                    .trackedKeys(keysByPolicy.getOrDefault(policy.name(), 0L))
+                    .build());
+        }
+        return stats;
+    }
+
+    private static List<Rule> parseRules(String spec) {
+        List<Rule> parsed = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return parsed;
+        }
+
+        for (String part : spec.split(",")) {
+            String rule = part.trim();
+            int colon = rule.indexOf(':');
+            int slash = rule.indexOf('/');
+            if (colon < 0 || slash < colon) {
+                throw new IllegalArgumentException("Некорректное правило ограничения частоты: " + rule);
+            }
+
+            KeyType keyType = KeyType.valueOf(rule.substring(0, colon).trim().toUpperCase(Locale.ROOT));
+            int capacity = Integer.parseInt(rule.substring(colon + 1, slash).trim());
+            Duration period = Duration.parse(rule.substring(slash + 1).trim());
+            if (capacity <= 0 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Некорректное правило ограничения частоты: " + rule);
+            }
+            parsed.add(new Rule(keyType, capacity, period));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.model.Ticket;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш подписанных тикетов проверки лицензии по паре (лицензия, устройство).
+ * Запись живет не дольше срока жизни тикета (ticketLifetime, в днях от serverDate),
+ * окончания лицензии и ticket.cache.max-age; сбрасывается при изменении лицензии или устройства.
+ */
+@Service
+@Slf4j
+public class TicketCacheService {
+
+    private record TicketCacheKey(Long licenseId, Long deviceId) {
+    }
+
+    private final Cache<TicketCacheKey, Ticket> cache;
+
+    public TicketCacheService(@Value("${ticket.cache.max-size:10000}") long maxSize,
+                              @Value("${ticket.cache.max-age:PT5M}") Duration maxAge) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TicketExpiry(maxAge))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Ticket> getTicket(Long licenseId, Long deviceId) {
+        return Optional.ofNullable(cache.getIfPresent(new TicketCacheKey(licenseId, deviceId)));
+    }
+
+    public void putTicket(Long licenseId, Long deviceId, Ticket ticket) {
+        cache.put(new TicketCacheKey(licenseId, deviceId), ticket);
+    }
+
+    public void evictLicense(Long licenseId) {
+        if (licenseId != null) {
+            cache.asMap().keySet().removeIf(key -> licenseId.equals(key.licenseId()));
+        }
+    }
+
+    public void evictDevice(Long deviceId) {
+        if (deviceId != null) {
+            cache.asMap().keySet().removeIf(key -> deviceId.equals(key.deviceId()));
+        }
+    }
+
+    private static final class TicketExpiry implements Expiry<TicketCacheKey, Ticket> {
+
+        private final long maxAgeNanos;
+
+        private TicketExpiry(Duration maxAge) {
+            this.maxAgeNanos = maxAge.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(TicketCacheKey key, Ticket ticket, long currentTime) {
+            long expiresInMillis = Long.MAX_VALUE;
+
+            if (ticket.getServerDate() != null) {
+                LocalDateTime ticketEnd = ticket.getServerDate().plusDays(ticket.getTicketLifetime());
+                expiresInMillis = Duration.between(LocalDateTime.now(), ticketEnd).toMillis();
+            }
+            if (ticket.getExpirationDate() != null) {
+                expiresInMillis = Math.min(expiresInMillis, ticket.getExpirationDate().getTime() - System.currentTimeMillis());
+            }
+
+            long expiresInNanos = expiresInMillis == Long.MAX_VALUE ? maxAgeNanos : TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresInMillis));
+            return Math.min(maxAgeNanos, expiresInNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(TicketCacheKey key, Ticket ticket, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, ticket, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TicketCacheKey key, Ticket ticket, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.model.Ticket;
+import ru.mtuci.pshandakov.model.TicketEnvelope;
+import ru.mtuci.pshandakov.model.TicketSigningKey;
+import ru.mtuci.pshandakov.model.TicketSigningKeySet;
+import ru.mtuci.pshandakov.model.TicketVerificationResponse;
+import ru.mtuci.pshandakov.utils.SignatureUtil;
+import ru.mtuci.pshandakov.utils.TicketSignatureAlgorithm;
+import ru.mtuci.pshandakov.utils.TicketSigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@Service
+@Slf4j
+public class TicketSigningKeyService {
+
+    private static final String PRIVATE_KEY_BLOCK = "PRIVATE KEY";
+    private static final String PUBLIC_KEY_BLOCK = "PUBLIC KEY";
+
+    @Value("${ticket.signing.algorithm:RSA}")
+    private TicketSignatureAlgorithm algorithm;
+
+    /**
+     * Пусто — файл по умолчанию для алгоритма ({@link TicketSignatureAlgorithm#getDefaultKeyPath}).
+     */
+    @Value("${ticket.signing.key-path:}")
+    private String keyPath;
+
+    @Value("${ticket.signing.keystore-password:}")
+    private String keystorePassword;
+
+    @Value("${ticket.signing.key-alias:ticket-signing}")
+    private String keyAlias;
+
+    @Value("${ticket.signing.pool-size:8}")
+    private int poolSize;
+
+    @Value("${ticket.signing.retired-key-paths:}")
+    private String[] retiredKeyPaths;
+
+    @Getter
+    private TicketSigner signer;
+
+    private final List<TicketSigningKey> publishedKeys = new ArrayList<>();
+
+    @PostConstruct
+    public void init() throws GeneralSecurityException, IOException {
+        Path path = Path.of(keyPath == null || keyPath.isBlank() ? algorithm.getDefaultKeyPath() : keyPath);
+        KeyPair keyPair;
+
+        if (isPkcs12(path)) {
+            keyPair = loadPkcs12(path);
+            log.info("Ключ подписи тикетов загружен из хранилища PKCS#12: {}", path);
+        } else if (Files.exists(path)) {
+            keyPair = loadPem(path);
+            log.info("Ключ подписи тикетов загружен из PEM: {}", path);
+        } else {
+            keyPair = createPem(path);
+            log.warn("Ключ подписи тикетов не найден, создан новый: {}", path);
+        }
+
+        signer = algorithm.newSigner(SignatureUtil.computeKeyId(keyPair.getPublic()), keyPair.getPublic(), keyPair.getPrivate(), poolSize);
+        SignatureUtil.init(signer);
+        publishedKeys.add(signer.toSigningKey(TicketSigningKey.STATUS_ACTIVE, lastModified(path), null));
+        log.info("Подпись тикетов: алгоритм {}, ключ {}", algorithm, signer.getKeyId());
+
+        for (String retiredKeyPath : retiredKeyPaths) {
+            if (retiredKeyPath.isBlank()) {
+                continue;
+            }
+
+            Path retiredPath = Path.of(retiredKeyPath.trim());
+            TicketSigner retiredSigner = loadRetiredSigner(retiredPath);
+            SignatureUtil.registerVerificationSigner(retiredSigner);
+            publishedKeys.add(retiredSigner.toSigningKey(TicketSigningKey.STATUS_RETIRED, null, lastModified(retiredPath)));
+            log.info("Опубликован выведенный из оборота ключ подписи тикетов {}: {}", retiredSigner.getKeyId(), retiredPath);
+        }
+    }
+
+    public TicketSigningKeySet getKeySet() {
+        return TicketSigningKeySet.builder()
+                .keys(List.copyOf(publishedKeys))
+                .build();
+    }
+
+    public TicketVerificationResponse verifyTicket(Ticket ticket) {
+        boolean valid;
+        try {
+            valid = SignatureUtil.verifySignature(ticket);
+        } catch (Exception e) {
+            log.warn("Ошибка проверки подписи тикета: {}", e.getMessage());
+            valid = false;
+        }
+
+        return TicketVerificationResponse.builder()
+                .valid(valid)
+                .keyId(ticket.getKeyId())
+                .message(valid ? "Подпись тикета действительна" : "Подпись тикета недействительна")
+                .build();
+    }
+
+    public TicketVerificationResponse verifyEnvelope(TicketEnvelope envelope) {
+        boolean valid;
+        try {
+            valid = SignatureUtil.verifySignature(envelope);
+        } catch (Exception e) {
+            log.warn("Ошибка проверки подписи конверта тикетов: {}", e.getMessage());
+            valid = false;
+        }
+
+        return TicketVerificationResponse.builder()
+                .valid(valid)
+                .keyId(envelope.getKeyId())
+                .message(valid ? "Подпись конверта тикетов действительна" : "Подпись конверта тикетов недействительна")
+                .build();
+    }
+
+    private boolean isPkcs12(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".p12") || name.endsWith(".pfx");
+    }
+
+    private KeyPair loadPkcs12(Path path) throws GeneralSecurityException, IOException {
+        char[] password = keystorePassword.toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+
+        Key key = keyStore.getKey(keyAlias, password);
+        Certificate certificate = keyStore.getCertificate(keyAlias);
+        if (!(key instanceof PrivateKey privateKey) || certificate == null) {
+            throw new GeneralSecurityException("В хранилище " + path + " нет ключа с псевдонимом " + keyAlias);
+        }
+
+        checkAlgorithm(path, certificate.getPublicKey().getEncoded());
+        return new KeyPair(algorithm.checkKey(certificate.getPublicKey()), algorithm.checkKey(privateKey));
+    }
+
+    private KeyPair loadPem(Path path) throws GeneralSecurityException, IOException {
+        String pem = Files.readString(path, StandardCharsets.US_ASCII);
+
+        byte[] encodedPublicKey = readPemBlock(pem, PUBLIC_KEY_BLOCK);
+        checkAlgorithm(path, encodedPublicKey);
+        PrivateKey privateKey = algorithm.decodePrivateKey(readPemBlock(pem, PRIVATE_KEY_BLOCK));
+        PublicKey publicKey = algorithm.decodePublicKey(encodedPublicKey);
+        return new KeyPair(publicKey, privateKey);
+    }
+
+    /**
+     * Понятная ошибка вместо ошибки разбора ключа, если в файле ключ другого алгоритма.
+     */
+    private void checkAlgorithm(Path path, byte[] encodedPublicKey) throws GeneralSecurityException {
+        TicketSignatureAlgorithm stored = TicketSignatureAlgorithm.fromPublicKey(encodedPublicKey);
+        if (stored != algorithm) {
+            throw new GeneralSecurityException(String.format(
+                    "В %s ключ алгоритма %s, а ticket.signing.algorithm=%s: укажите ticket.signing.key-path " +
+                            "для нового ключа, прежний можно опубликовать через ticket.signing.retired-key-paths",
+                    path, stored, algorithm));
+        }
+    }
+
+    private TicketSigner loadRetiredSigner(Path path) throws GeneralSecurityException, IOException {
+        String pem = Files.readString(path, StandardCharsets.US_ASCII);
+        byte[] encoded = readPemBlock(pem, PUBLIC_KEY_BLOCK);
+
+        TicketSignatureAlgorithm retiredAlgorithm = TicketSignatureAlgorithm.fromPublicKey(encoded);
+        PublicKey publicKey = retiredAlgorithm.decodePublicKey(encoded);
+        return retiredAlgorithm.newSigner(SignatureUtil.computeKeyId(publicKey), publicKey, null, 0);
+    }
+
+    private KeyPair createPem(Path path) throws GeneralSecurityException, IOException {
+        KeyPair generated = algorithm.generateKeyPair();
+
+        String pem = writePemBlock(PRIVATE_KEY_BLOCK, generated.getPrivate().getEncoded())
+                + writePemBlock(PUBLIC_KEY_BLOCK, generated.getPublic().getEncoded());
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(path, pem, StandardCharsets.US_ASCII);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        }
+
+        return generated;
+    }
+
+    private static Instant lastModified(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).toInstant();
+    }
+
+    private static byte[] readPemBlock(String pem, String type) throws GeneralSecurityException {
+        String begin = "-----BEGIN " + type + "-----";
+        String end = "-----END " + type + "-----";
+
+        int from = pem.indexOf(begin);
+        int to = pem.indexOf(end);
+        if (from < 0 || to < from) {
+            throw new GeneralSecurityException("В PEM-файле отсутствует блок " + type);
+        }
+
+        return Base64.getMimeDecoder().decode(pem.substring(from + begin.length(), to));
+    }
+
+    private static String writePemBlock(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(encoded)
+                + "\n-----END " + type + "-----\n";
+    }
+}
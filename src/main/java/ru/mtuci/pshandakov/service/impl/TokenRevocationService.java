@@ -0,0 +1,90 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Текущие версии токенов пользователей в памяти. Токен действителен, пока его версия (claim ver)
+ * совпадает с users.token_version. Версия читается из БД при первом обращении и перечитывается
+ * при обращении после jwt.revocation.ttl: отзыв на другом узле подхватывается не позже чем через TTL,
+ * а читаются только пользователи, которые предъявляют токены.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final long REVOKED = -1;
+
+    /**
+     * Версия и момент начала запроса, которым она прочитана.
+     */
+    private record LoadedVersion(long version, long loadedAtNanos) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCacheService userCacheService;
+    private final Cache<Long, LoadedVersion> versions;
+    private final long ttlNanos;
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate,
+                                  UserCacheService userCacheService,
+                                  @Value("${jwt.revocation.ttl:PT30S}") Duration ttl,
+                                  @Value("${jwt.revocation.max-size:100000}") long maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userCacheService = userCacheService;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        long current = getVersion(userId);
+        return current != REVOKED && current == tokenVersion;
+    }
+
+    public long getVersion(Long userId) {
+        LoadedVersion loaded = versions.getIfPresent(userId);
+        if (loaded == null || System.nanoTime() - loaded.loadedAtNanos() > ttlNanos) {
+            return load(userId);
+        }
+        return loaded.version();
+    }
+
+    /**
+     * Отзывает все выданные пользователю токены.
+     */
+    public void revoke(Long userId) {
+        jdbcTemplate.update("update users set token_version = token_version + 1 where id = ?", userId);
+        load(userId);
+        log.info("Токены пользователя с ID {} отозваны", userId);
+    }
+
+    /**
+     * Запрос в БД идет вне блокировок кэша. Из двух параллельных загрузок остается начатая позже:
+     * она не могла прочитать версию старее, чем записал завершившийся до нее revoke.
+     */
+    private long load(Long userId) {
+        long start = System.nanoTime();
+        List<Long> found = jdbcTemplate.queryForList("select token_version from users where id = ?", Long.class, userId);
+        LoadedVersion loaded = new LoadedVersion(found.isEmpty() ? REVOKED : found.get(0), start);
+
+        return versions.asMap().merge(userId, loaded, (previous, fresh) -> {
+            if (fresh.loadedAtNanos() - previous.loadedAtNanos() < 0) {
+                return previous;
+            }
+            if (previous.version() != fresh.version()) {
+                // версия меняется при любом изменении или удалении пользователя, в том числе на других узлах
+                userCacheService.evict(userId);
+            }
+            return fresh;
+        }).version();
+    }
+}
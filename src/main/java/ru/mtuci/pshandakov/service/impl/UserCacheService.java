@@ -0,0 +1,117 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.mtuci.pshandakov.model.ApplicationUser;
+import ru.mtuci.pshandakov.model.CacheStatistics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Кэш пользователей по email и по ID для путей аутентификации и лицензирования.
+ * Хранятся отсоединенные копии без списка лицензий, поэтому их нельзя изменять и сохранять.
+ * Записи сбрасываются при изменении и удалении пользователя на этом узле, при смене
+ * версии токенов (изменение на другом узле, см. {@link TokenRevocationService}) и по user.cache.ttl.
+ */
+@Service
+public class UserCacheService {
+
+    private final Cache<String, ApplicationUser> byEmail;
+    private final Cache<Long, ApplicationUser> byId;
+
+    public UserCacheService(@Value("${user.cache.max-size:10000}") long maxSize,
+                            @Value("${user.cache.ttl:PT1M}") Duration ttl) {
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<ApplicationUser> getByEmail(String email, Supplier<Optional<ApplicationUser>> loader) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return getOrLoad(byEmail, email, loader);
+    }
+
+    public Optional<ApplicationUser> getById(Long id, Supplier<Optional<ApplicationUser>> loader) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return getOrLoad(byId, id, loader);
+    }
+
+    /**
+     * Загрузка выполняется вне Cache.get(key, loader): тот держит монитор ConcurrentHashMap на время
+     * запроса в БД, а блокировка внутри монитора закрепляет виртуальный поток за потоком-носителем.
+     * Параллельные промахи по одному ключу могут прочитать пользователя несколько раз.
+     */
+    private static <K> Optional<ApplicationUser> getOrLoad(Cache<K, ApplicationUser> cache, K key,
+                                                           Supplier<Optional<ApplicationUser>> loader) {
+        ApplicationUser cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<ApplicationUser> loaded = loader.get().map(UserCacheService::detachedCopy);
+        loaded.ifPresent(user -> cache.put(key, user));
+        return loaded;
+    }
+
+    public void evict(Long id) {
+        if (id == null) {
+            return;
+        }
+
+        byId.invalidate(id);
+        byEmail.asMap().values().removeIf(user -> id.equals(user.getId()));
+    }
+
+    public void evictByEmail(String email) {
+        if (email == null) {
+            return;
+        }
+
+        byEmail.invalidate(email);
+        byId.asMap().values().removeIf(user -> email.equals(user.getEmail()));
+    }
+
+    public List<CacheStatistics> getStatistics() {
+        return List.of(statisticsOf("usersByEmail", byEmail), statisticsOf("usersById", byId));
+    }
+
+    private static CacheStatistics statisticsOf(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return CacheStatistics.builder()
+                .name(name)
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    private static ApplicationUser detachedCopy(ApplicationUser user) {
+        return ApplicationUser.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .tokenVersion(user.getTokenVersion())
+                .build();
+    }
+}
@@ -1,7 +1,10 @@
 package ru.mtuci.pshandakov.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,14 +14,34 @@ import ru.mtuci.pshandakov.repository.ApplicationUserRepository;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final ApplicationUserRepository userRepository;
+    private final UserCacheService userCacheService;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        ApplicationUser user = userRepository.findByEmail(email)
+        ApplicationUser user = userCacheService.getByEmail(email, () -> userRepository.findByEmail(email))
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
         return UserDetailsImpl.fromApplicationUser(user);
     }
+
+    /**
+     * Перехеширование пароля целевой схемой. Вызывается DaoAuthenticationProvider после успешной
+     * проверки пароля в AuthenticationService.login, если хеш записан другой схемой или с другими параметрами.
+     * Если пароль успели сменить, новый хеш не записывается.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        int updated = userRepository.replacePassword(user.getUsername(), user.getPassword(), newPassword);
+        if (updated == 0) {
+            log.info("Перехеширование пароля пропущено: пароль пользователя {} изменился", user.getUsername());
+            return user;
+        }
+
+        userCacheService.evictByEmail(user.getUsername());
+        log.info("Пароль пользователя {} перехеширован", user.getUsername());
+        return User.withUserDetails(user).password(newPassword).build();
+    }
 }
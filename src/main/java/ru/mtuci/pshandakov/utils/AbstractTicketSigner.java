@@ -0,0 +1,75 @@
+package ru.mtuci.pshandakov.utils;
+
+import lombok.Getter;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Общая часть подписантов: пул {@link Signature} для закрытого ключа и проверка по открытому.
+ * Подписант без закрытого ключа (ключ после ротации) умеет только проверять подписи.
+ */
+public abstract class AbstractTicketSigner implements TicketSigner {
+
+    @Getter
+    private final String keyId;
+
+    @Getter
+    private final TicketSignatureAlgorithm algorithm;
+
+    @Getter
+    private final PublicKey publicKey;
+
+    private final SignaturePool signaturePool;
+
+    protected AbstractTicketSigner(TicketSignatureAlgorithm algorithm, String keyId, PublicKey publicKey, PrivateKey privateKey, int poolSize)
+            throws GeneralSecurityException {
+        this.algorithm = algorithm;
+        this.keyId = keyId;
+        this.publicKey = publicKey;
+        this.signaturePool = privateKey != null
+                ? new SignaturePool(algorithm.getSignatureAlgorithm(), privateKey, poolSize)
+                : null;
+    }
+
+    @Override
+    public byte[] sign(byte[] data, int offset, int length) throws GeneralSecurityException {
+        if (signaturePool == null) {
+            throw new IllegalStateException("Ключ " + keyId + " используется только для проверки подписи");
+        }
+        return signaturePool.sign(data, offset, length);
+    }
+
+    @Override
+    public boolean verify(byte[] data, int offset, int length, byte[] signature) throws GeneralSecurityException {
+        Signature verifier = Signature.getInstance(algorithm.getSignatureAlgorithm());
+        verifier.initVerify(publicKey);
+        verifier.update(data, offset, length);
+        return verifier.verify(signature);
+    }
+
+    protected static String toBase64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Беззнаковое big-endian представление числа; при size > 0 дополняется нулями слева до size байт.
+     */
+    protected static String toBase64Url(BigInteger value, int size) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (size > bytes.length) {
+            byte[] padded = new byte[size];
+            System.arraycopy(bytes, 0, padded, size - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return toBase64Url(bytes);
+    }
+}
@@ -0,0 +1,148 @@
+package ru.mtuci.pshandakov.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import ru.mtuci.pshandakov.exception.PasswordHashingRejectedException;
+import ru.mtuci.pshandakov.model.PasswordHashingStats;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Выполняет хеширование и проверку паролей в отдельном пуле фиксированного размера с ограниченной очередью.
+ * Одновременно хешируется не больше threads паролей, еще queueCapacity запросов ждут;
+ * остальные сразу получают {@link PasswordHashingRejectedException}, поэтому всплеск входов
+ * не занимает все потоки Tomcat и не мешает проверке лицензий.
+ * Как {@link MeterBinder} публикует security.password.hashing (время ожидания в очереди и хеширования,
+ * тег phase), загрузку пула и число отказов.
+ */
+public final class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long timeoutNanos;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    private volatile Timer queueWaitTimer;
+    private volatile Timer hashTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout) {
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+        this.timeoutNanos = timeout.toNanos();
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public PasswordHashingStats getStats() {
+        long count = completed.sum();
+        return PasswordHashingStats.builder()
+                .threads(executor.getMaximumPoolSize())
+                .activeThreads(executor.getActiveCount())
+                .queueDepth(executor.getQueue().size())
+                .queueCapacity(queueCapacity)
+                .completed(count)
+                .rejected(rejected.sum())
+                .averageQueueWaitMillis(count == 0 ? 0 : queueWaitNanos.sum() / 1e6 / count)
+                .averageHashMillis(count == 0 ? 0 : hashNanos.sum() / 1e6 / count)
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("security.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        Gauge.builder("security.password.hashing.queue.size", executor, e -> e.getQueue().size()).register(registry);
+        FunctionCounter.builder("security.password.hashing.rejected", rejected, LongAdder::sum).register(registry);
+        queueWaitTimer = Timer.builder("security.password.hashing").tag("phase", "queue").register(registry);
+        hashTimer = Timer.builder("security.password.hashing").tag("phase", "hash").register(registry);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(queueWaitNanos, queueWaitTimer, startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    record(hashNanos, hashTimer, System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Сервис аутентификации перегружен, повторите попытку позже");
+        }
+
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Превышено время ожидания проверки пароля, повторите попытку позже");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingRejectedException("Проверка пароля прервана");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void record(LongAdder total, Timer timer, long nanos) {
+        total.add(nanos);
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.mtuci.pshandakov.utils;
+
+import ru.mtuci.pshandakov.model.TicketSigningKey;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Instant;
+
+public class EcdsaTicketSigner extends AbstractTicketSigner {
+
+    private static final int COORDINATE_SIZE = 32;
+
+    public EcdsaTicketSigner(String keyId, PublicKey publicKey, PrivateKey privateKey, int poolSize) throws GeneralSecurityException {
+        super(TicketSignatureAlgorithm.ECDSA_P256, keyId, publicKey, privateKey, poolSize);
+    }
+
+    @Override
+    public TicketSigningKey toSigningKey(String status, Instant createdAt, Instant retiredAt) {
+        ECPublicKey ecPublicKey = (ECPublicKey) getPublicKey();
+        return TicketSigningKey.builder()
+                .kid(getKeyId())
+                .kty("EC")
+                .crv("P-256")
+                .alg(getAlgorithm().getJwsAlgorithm())
+                .use("sig")
+                .x(toBase64Url(ecPublicKey.getW().getAffineX(), COORDINATE_SIZE))
+                .y(toBase64Url(ecPublicKey.getW().getAffineY(), COORDINATE_SIZE))
+                .status(status)
+                .createdAt(createdAt)
+                .retiredAt(retiredAt)
+                .build();
+    }
+}
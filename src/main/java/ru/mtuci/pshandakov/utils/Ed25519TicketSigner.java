@@ -0,0 +1,37 @@
+package ru.mtuci.pshandakov.utils;
+
+import ru.mtuci.pshandakov.model.TicketSigningKey;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Arrays;
+
+public class Ed25519TicketSigner extends AbstractTicketSigner {
+
+    private static final int PUBLIC_KEY_SIZE = 32;
+
+    public Ed25519TicketSigner(String keyId, PublicKey publicKey, PrivateKey privateKey, int poolSize) throws GeneralSecurityException {
+        super(TicketSignatureAlgorithm.ED25519, keyId, publicKey, privateKey, poolSize);
+    }
+
+    @Override
+    public TicketSigningKey toSigningKey(String status, Instant createdAt, Instant retiredAt) {
+        // SubjectPublicKeyInfo для Ed25519 заканчивается 32 байтами самого ключа (RFC 8410)
+        byte[] encoded = getPublicKey().getEncoded();
+        byte[] rawKey = Arrays.copyOfRange(encoded, encoded.length - PUBLIC_KEY_SIZE, encoded.length);
+
+        return TicketSigningKey.builder()
+                .kid(getKeyId())
+                .kty("OKP")
+                .crv("Ed25519")
+                .alg(getAlgorithm().getJwsAlgorithm())
+                .use("sig")
+                .x(toBase64Url(rawKey))
+                .status(status)
+                .createdAt(createdAt)
+                .retiredAt(retiredAt)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package ru.mtuci.pshandakov.utils;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Схемы хеширования паролей. Хеши хранятся с префиксом схемы ({bcrypt}..., {argon2}...),
+ * новые пароли хешируются целевой схемой, старые хеши без префикса проверяются как BCrypt.
+ * Хеш, записанный не целевой схемой или с другими параметрами, требует перехеширования
+ * ({@link PasswordEncoder#upgradeEncoding}), которое выполняется при следующем успешном входе.
+ */
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+
+    private PasswordEncoders() {
+    }
+
+    public static PasswordEncoder bcrypt(int strength) {
+        return new TunedBCryptPasswordEncoder(strength);
+    }
+
+    public static PasswordEncoder argon2(int memoryKb, int iterations, int parallelism) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, parallelism, memoryKb, iterations);
+    }
+
+    /**
+     * @param idForEncode схема для новых хешей: {@link #BCRYPT} или {@link #ARGON2}
+     */
+    public static DelegatingPasswordEncoder delegating(String idForEncode, int bcryptStrength,
+                                                       int argon2MemoryKb, int argon2Iterations, int argon2Parallelism) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt(bcryptStrength));
+        encoders.put(ARGON2, argon2(argon2MemoryKb, argon2Iterations, argon2Parallelism));
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalArgumentException("Неизвестная схема хеширования паролей: " + idForEncode);
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        // хеши, записанные до введения префиксов, — BCrypt; стоимость BCrypt хранится в самом хеше
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    /**
+     * BCrypt, который требует перехеширования при любой стоимости, отличной от целевой,
+     * в том числе большей: стандартный {@link BCryptPasswordEncoder} умеет только повышать стоимость.
+     */
+    private static final class TunedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+        private final int strength;
+
+        private TunedBCryptPasswordEncoder(int strength) {
+            super(strength);
+            this.strength = strength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            // формат: $2a$12$<соль и хеш>
+            if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') {
+                return false;
+            }
+
+            try {
+                return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.mtuci.pshandakov.utils;
+
+import ru.mtuci.pshandakov.model.TicketSigningKey;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+
+public class RsaTicketSigner extends AbstractTicketSigner {
+
+    public RsaTicketSigner(String keyId, PublicKey publicKey, PrivateKey privateKey, int poolSize) throws GeneralSecurityException {
+        super(TicketSignatureAlgorithm.RSA, keyId, publicKey, privateKey, poolSize);
+    }
+
+    @Override
+    public TicketSigningKey toSigningKey(String status, Instant createdAt, Instant retiredAt) {
+        RSAPublicKey rsaPublicKey = (RSAPublicKey) getPublicKey();
+        return TicketSigningKey.builder()
+                .kid(getKeyId())
+                .kty("RSA")
+                .alg(getAlgorithm().getJwsAlgorithm())
+                .use("sig")
+                .n(toBase64Url(rsaPublicKey.getModulus(), 0))
+                .e(toBase64Url(rsaPublicKey.getPublicExponent(), 0))
+                .status(status)
+                .createdAt(createdAt)
+                .retiredAt(retiredAt)
+                .build();
+    }
+}
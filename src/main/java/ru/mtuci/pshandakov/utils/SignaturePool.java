@@ -0,0 +1,58 @@
+package ru.mtuci.pshandakov.utils;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Пул проинициализированных {@link Signature} для одного закрытого ключа.
+ * {@link Signature} не потокобезопасен, поэтому каждый поток берет свой экземпляр из пула
+ * и возвращает его после подписи. При пустом пуле создается временный экземпляр.
+ */
+public final class SignaturePool {
+
+    private final String algorithm;
+    private final PrivateKey privateKey;
+    private final BlockingQueue<Signature> pool;
+
+    public SignaturePool(String algorithm, PrivateKey privateKey, int size) throws NoSuchAlgorithmException, InvalidKeyException {
+        this.algorithm = algorithm;
+        this.privateKey = privateKey;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, size));
+
+        for (int i = 0; i < size; i++) {
+            pool.offer(newSignature());
+        }
+    }
+
+    private Signature newSignature() throws NoSuchAlgorithmException, InvalidKeyException {
+        Signature signature = Signature.getInstance(algorithm);
+        signature.initSign(privateKey);
+        return signature;
+    }
+
+    public byte[] sign(byte[] data, int offset, int length) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        Signature signature = pool.poll();
+        if (signature == null) {
+            signature = newSignature();
+        }
+
+        signature.update(data, offset, length);
+        byte[] result = signature.sign();
+        // sign() сбрасывает состояние, экземпляр можно переиспользовать
+        pool.offer(signature);
+        return result;
+    }
+
+    public byte[] sign(byte[] data) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        return sign(data, 0, data.length);
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+}
@@ -1,39 +1,163 @@
 package ru.mtuci.pshandakov.utils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import ru.mtuci.pshandakov.model.Ticket;
+import ru.mtuci.pshandakov.model.TicketEnvelope;
 
-import java.security.InvalidKeyException;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
-import java.security.Signature;
-import java.security.SignatureException;
+import java.security.PublicKey;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public final class SignatureUtil {
 
+    private static final int DEFAULT_POOL_SIZE = 4;
+
+    private static final Object LOCK = new Object();
+
+    private static final Map<String, TicketSigner> verificationSigners = new ConcurrentHashMap<>();
+
+    private static volatile TicketSigner activeSigner;
+
+    /**
+     * Время подписи и проверки без кодирования и поиска ключа. Утилита статическая, поэтому таймеры
+     * регистрируются в глобальном реестре, к которому Spring Boot подключает свой (в том числе Prometheus).
+     */
+    private static final Timer TICKET_SIGN_TIMER = signatureTimer("sign", "ticket");
+    private static final Timer ENVELOPE_SIGN_TIMER = signatureTimer("sign", "envelope");
+    private static final Timer TICKET_VERIFY_TIMER = signatureTimer("verify", "ticket");
+    private static final Timer ENVELOPE_VERIFY_TIMER = signatureTimer("verify", "envelope");
+
     private SignatureUtil() {
 
     }
 
+    /**
+     * Устанавливает долгоживущий подписант тикетов. Вызывается один раз при старте приложения.
+     */
+    public static void init(TicketSigner signer) {
+        registerVerificationSigner(signer);
+        activeSigner = signer;
+    }
+
+    /**
+     * Регистрирует подписант, по которому принимаются подписи тикетов (в том числе ключи после ротации).
+     */
+    public static void registerVerificationSigner(TicketSigner signer) {
+        verificationSigners.put(signer.getKeyId(), signer);
+    }
+
+    /**
+     * Идентификатор ключа: первые 16 байт SHA-256 от SubjectPublicKeyInfo в base64url.
+     */
+    public static String computeKeyId(PublicKey publicKey) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(publicKey.getEncoded());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+    }
+
+    private static TicketSigner getActiveSigner() throws GeneralSecurityException {
+        TicketSigner signer = activeSigner;
+        if (signer != null) {
+            return signer;
+        }
+
+        // Вне Spring-контекста (например, в утилитах) ключ не загружен: генерируем его один раз на процесс
+        synchronized (LOCK) {
+            if (activeSigner == null) {
+                TicketSignatureAlgorithm algorithm = TicketSignatureAlgorithm.RSA;
+                KeyPair keyPair = algorithm.generateKeyPair();
+                init(algorithm.newSigner(computeKeyId(keyPair.getPublic()), keyPair.getPublic(), keyPair.getPrivate(), DEFAULT_POOL_SIZE));
+            }
+            return activeSigner;
+        }
+    }
+
+    public static String getKeyId() throws GeneralSecurityException {
+        return getActiveSigner().getKeyId();
+    }
+
+    public static String makeSignature(Ticket ticket) throws GeneralSecurityException {
+        TicketSigner signer = getActiveSigner();
+        TicketCanonicalEncoder.Buffer data = TicketCanonicalEncoder.encode(ticket);
+        return Base64.getEncoder().encodeToString(sign(TICKET_SIGN_TIMER, signer, data));
+    }
+
+    /**
+     * Одна подпись на все тикеты конверта. keyId конверта должен быть ключом активного подписанта.
+     */
+    public static String makeSignature(TicketEnvelope envelope) throws GeneralSecurityException {
+        TicketSigner signer = getActiveSigner();
+        TicketCanonicalEncoder.Buffer data = TicketCanonicalEncoder.encode(envelope);
+        return Base64.getEncoder().encodeToString(sign(ENVELOPE_SIGN_TIMER, signer, data));
+    }
+
+    public static boolean verifySignature(Ticket ticket) {
+        TicketSigner signer = findVerificationSigner(ticket.getKeyId(), ticket.getDigitalSignature());
+        if (signer == null) {
+            return false;
+        }
+
+        try {
+            byte[] signature = Base64.getDecoder().decode(ticket.getDigitalSignature());
+            TicketCanonicalEncoder.Buffer data = TicketCanonicalEncoder.encode(ticket);
+            return verify(TICKET_VERIFY_TIMER, signer, data, signature);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static boolean verifySignature(TicketEnvelope envelope) {
+        TicketSigner signer = findVerificationSigner(envelope.getKeyId(), envelope.getDigitalSignature());
+        if (signer == null) {
+            return false;
+        }
 
-    public static String makeSignature(Ticket ticket) throws NoSuchAlgorithmException, JsonProcessingException, InvalidKeyException, SignatureException {
-        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
-        String ticketRes = objectMapper.writeValueAsString(ticket);
+        try {
+            byte[] signature = Base64.getDecoder().decode(envelope.getDigitalSignature());
+            TicketCanonicalEncoder.Buffer data = TicketCanonicalEncoder.encode(envelope);
+            return verify(ENVELOPE_VERIFY_TIMER, signer, data, signature);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
 
-        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-        keyPairGenerator.initialize(2048);
-        KeyPair keyPair = keyPairGenerator.generateKeyPair();
-        PrivateKey privateKey = keyPair.getPrivate();
+    private static byte[] sign(Timer timer, TicketSigner signer, TicketCanonicalEncoder.Buffer data) throws GeneralSecurityException {
+        long start = System.nanoTime();
+        try {
+            return signer.sign(data.array(), 0, data.length());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        Signature signature = Signature.getInstance("SHA256withRSA");
-        signature.initSign(privateKey);
-        signature.update(ticketRes.getBytes());
+    private static boolean verify(Timer timer, TicketSigner signer, TicketCanonicalEncoder.Buffer data,
+                                  byte[] signature) throws GeneralSecurityException {
+        long start = System.nanoTime();
+        try {
+            return signer.verify(data.array(), 0, data.length(), signature);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer signatureTimer(String operation, String payload) {
+        return Timer.builder("licensing.signature")
+                .tag("operation", operation)
+                .tag("payload", payload)
+                .register(Metrics.globalRegistry);
+    }
 
-        return Base64.getEncoder().encodeToString(signature.sign());
+    private static TicketSigner findVerificationSigner(String keyId, String digitalSignature) {
+        if (keyId == null || digitalSignature == null) {
+            return null;
+        }
+        return verificationSigners.get(keyId);
     }
 }
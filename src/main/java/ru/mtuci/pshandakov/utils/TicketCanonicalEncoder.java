@@ -0,0 +1,244 @@
+package ru.mtuci.pshandakov.utils;
+
+import ru.mtuci.pshandakov.model.LicenseCheckBatchItem;
+import ru.mtuci.pshandakov.model.Ticket;
+import ru.mtuci.pshandakov.model.TicketEnvelope;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Каноническое двоичное представление тикета, которое подписывается и проверяется.
+ * Не зависит от Jackson и кодировки JVM по умолчанию, поэтому клиент может воспроизвести его побайтно.
+ *
+ * <pre>
+ * u8      версия формата (1)
+ * str     keyId
+ * i64,i32 serverDate: секунды эпохи полей даты как UTC, наносекунды
+ * i32     ticketLifetime
+ * opt i64 activationDate, мс эпохи
+ * opt i64 expirationDate, мс эпохи
+ * opt i64 userId
+ * opt i64 deviceId
+ * u8      isBlocked (0/1)
+ * str     detail
+ * </pre>
+ * Числа пишутся big-endian. opt — байт присутствия 0/1, затем значение.
+ * str — i32 длина в байтах UTF-8 (-1 для null), затем байты.
+ * digitalSignature в представление не входит.
+ *
+ * <p>Конверт пакетной проверки ({@link TicketEnvelope}) начинается с другого байта,
+ * поэтому подпись конверта не может быть принята как подпись тикета и наоборот:
+ * <pre>
+ * u8      тег конверта ('E')
+ * u8      версия формата (1)
+ * str     keyId
+ * i64,i32 serverDate
+ * opt i64 userId
+ * i32     число элементов, затем для каждого:
+ *   str     macAddress
+ *   str     deviceName
+ *   i32     status
+ *   str     message
+ *   u8      наличие тикета (0/1), затем тикет в формате выше
+ * </pre>
+ */
+public final class TicketCanonicalEncoder {
+
+    public static final int FORMAT_VERSION = 1;
+
+    public static final int ENVELOPE_TAG = 'E';
+    public static final int ENVELOPE_FORMAT_VERSION = 1;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(() -> new Buffer(INITIAL_CAPACITY));
+
+    private TicketCanonicalEncoder() {
+
+    }
+
+    /**
+     * Кодирует тикет в буфер текущего потока. Буфер действителен до следующего вызова в этом потоке.
+     */
+    public static Buffer encode(Ticket ticket) {
+        Buffer buffer = acquireBuffer();
+        encodeTo(buffer, ticket);
+        return buffer;
+    }
+
+    /**
+     * Возвращает очищенный буфер текущего потока.
+     */
+    public static Buffer acquireBuffer() {
+        Buffer buffer = BUFFERS.get();
+        if (buffer.data.length > MAX_RETAINED_CAPACITY) {
+            buffer = new Buffer(INITIAL_CAPACITY);
+            BUFFERS.set(buffer);
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    public static void encodeTo(Buffer buffer, Ticket ticket) {
+        buffer.writeByte(FORMAT_VERSION);
+        buffer.writeString(ticket.getKeyId());
+        writeLocalDateTime(buffer, ticket.getServerDate());
+        buffer.writeInt(ticket.getTicketLifetime());
+        writeDate(buffer, ticket.getActivationDate());
+        writeDate(buffer, ticket.getExpirationDate());
+        writeOptionalLong(buffer, ticket.getUserId());
+        writeOptionalLong(buffer, ticket.getDeviceId());
+        buffer.writeByte(ticket.isBlocked() ? 1 : 0);
+        buffer.writeString(ticket.getDetail());
+    }
+
+    /**
+     * Кодирует конверт в буфер текущего потока. Буфер действителен до следующего вызова в этом потоке.
+     */
+    public static Buffer encode(TicketEnvelope envelope) {
+        Buffer buffer = acquireBuffer();
+        buffer.writeByte(ENVELOPE_TAG);
+        buffer.writeByte(ENVELOPE_FORMAT_VERSION);
+        buffer.writeString(envelope.getKeyId());
+        writeLocalDateTime(buffer, envelope.getServerDate());
+        writeOptionalLong(buffer, envelope.getUserId());
+
+        List<LicenseCheckBatchItem> items = envelope.getItems() != null ? envelope.getItems() : List.of();
+        buffer.writeInt(items.size());
+        for (LicenseCheckBatchItem item : items) {
+            buffer.writeString(item.getMacAddress());
+            buffer.writeString(item.getDeviceName());
+            buffer.writeInt(item.getStatus());
+            buffer.writeString(item.getMessage());
+            if (item.getTicket() == null) {
+                buffer.writeByte(0);
+            } else {
+                buffer.writeByte(1);
+                encodeTo(buffer, item.getTicket());
+            }
+        }
+        return buffer;
+    }
+
+    private static void writeLocalDateTime(Buffer buffer, LocalDateTime value) {
+        if (value == null) {
+            buffer.writeLong(0);
+            buffer.writeInt(-1);
+            return;
+        }
+        buffer.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        buffer.writeInt(value.getNano());
+    }
+
+    private static void writeDate(Buffer buffer, Date value) {
+        writeOptionalLong(buffer, value != null ? value.getTime() : null);
+    }
+
+    private static void writeOptionalLong(Buffer buffer, Long value) {
+        if (value == null) {
+            buffer.writeByte(0);
+            return;
+        }
+        buffer.writeByte(1);
+        buffer.writeLong(value);
+    }
+
+    public static final class Buffer {
+
+        private byte[] data;
+        private int length;
+
+        private Buffer(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        public byte[] array() {
+            return data;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+
+        private void reset() {
+            length = 0;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            data[length++] = (byte) value;
+        }
+
+        private void writeInt(int value) {
+            ensureCapacity(4);
+            data[length++] = (byte) (value >>> 24);
+            data[length++] = (byte) (value >>> 16);
+            data[length++] = (byte) (value >>> 8);
+            data[length++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        /**
+         * Пишет строку в UTF-8 без промежуточного byte[]: резервирует место под длину и дописывает ее после кодирования.
+         */
+        private void writeString(String value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+
+            int lengthPosition = length;
+            writeInt(0);
+            ensureCapacity(value.length() * 3);
+            int start = length;
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    data[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    data[length++] = (byte) (0xC0 | (c >> 6));
+                    data[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    data[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    data[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    data[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    data[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // одиночный суррогат кодируется как '?', так же как в String.getBytes(UTF_8)
+                    data[length++] = (byte) '?';
+                } else {
+                    data[length++] = (byte) (0xE0 | (c >> 12));
+                    data[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    data[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+
+            int encodedLength = length - start;
+            data[lengthPosition] = (byte) (encodedLength >>> 24);
+            data[lengthPosition + 1] = (byte) (encodedLength >>> 16);
+            data[lengthPosition + 2] = (byte) (encodedLength >>> 8);
+            data[lengthPosition + 3] = (byte) encodedLength;
+        }
+    }
+}
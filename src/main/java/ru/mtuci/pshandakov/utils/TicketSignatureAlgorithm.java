@@ -0,0 +1,114 @@
+package ru.mtuci.pshandakov.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+@Getter
+@AllArgsConstructor
+public enum TicketSignatureAlgorithm {
+    RSA("RSA", "SHA256withRSA", "RS256"),
+    // P1363: подпись в виде R||S фиксированной длины 64 байта вместо DER
+    ECDSA_P256("EC", "SHA256withECDSAinP1363Format", "ES256"),
+    ED25519("Ed25519", "Ed25519", "EdDSA");
+
+    private static final String P256_CURVE = "secp256r1";
+
+    private final String keyAlgorithm;
+    private final String signatureAlgorithm;
+    private final String jwsAlgorithm;
+
+    /**
+     * PEM-файл ключа по умолчанию: у каждого алгоритма свой, чтобы смена алгоритма не упиралась в чужой ключ.
+     * RSA сохраняет прежнее имя файла.
+     */
+    public String getDefaultKeyPath() {
+        return switch (this) {
+            case RSA -> "keys/ticket-signing.pem";
+            case ECDSA_P256 -> "keys/ticket-signing-ecdsa-p256.pem";
+            case ED25519 -> "keys/ticket-signing-ed25519.pem";
+        };
+    }
+
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(keyAlgorithm);
+        switch (this) {
+            case RSA -> keyPairGenerator.initialize(2048);
+            case ECDSA_P256 -> keyPairGenerator.initialize(new ECGenParameterSpec(P256_CURVE));
+            case ED25519 -> {
+            }
+        }
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    public PrivateKey decodePrivateKey(byte[] encoded) throws GeneralSecurityException {
+        return checkKey(KeyFactory.getInstance(keyAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(encoded)));
+    }
+
+    public PublicKey decodePublicKey(byte[] encoded) throws GeneralSecurityException {
+        return checkKey(KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(encoded)));
+    }
+
+    /**
+     * Проверяет, что ключ подходит алгоритму: для ECDSA_P256 — что он на кривой P-256, а не на другой кривой EC.
+     */
+    public <K extends Key> K checkKey(K key) throws GeneralSecurityException {
+        if (!keyAlgorithm.equalsIgnoreCase(key.getAlgorithm())
+                && !(this == ED25519 && "EdDSA".equalsIgnoreCase(key.getAlgorithm()))) {
+            throw new GeneralSecurityException("Ключ " + key.getAlgorithm() + " не подходит для алгоритма " + name());
+        }
+        if (this == ECDSA_P256) {
+            if (!(key instanceof ECKey ecKey) || !isP256(ecKey.getParams())) {
+                throw new GeneralSecurityException("Ключ EC не на кривой P-256 (" + P256_CURVE + ")");
+            }
+        }
+        return key;
+    }
+
+    private static boolean isP256(ECParameterSpec params) throws GeneralSecurityException {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec(P256_CURVE));
+        ECParameterSpec p256 = parameters.getParameterSpec(ECParameterSpec.class);
+        return params != null
+                && p256.getCurve().equals(params.getCurve())
+                && p256.getGenerator().equals(params.getGenerator())
+                && p256.getOrder().equals(params.getOrder())
+                && p256.getCofactor() == params.getCofactor();
+    }
+
+    public TicketSigner newSigner(String keyId, PublicKey publicKey, PrivateKey privateKey, int poolSize) throws GeneralSecurityException {
+        return switch (this) {
+            case RSA -> new RsaTicketSigner(keyId, publicKey, privateKey, poolSize);
+            case ECDSA_P256 -> new EcdsaTicketSigner(keyId, publicKey, privateKey, poolSize);
+            case ED25519 -> new Ed25519TicketSigner(keyId, publicKey, privateKey, poolSize);
+        };
+    }
+
+    /**
+     * Определяет алгоритм по закодированному открытому ключу (X.509 SubjectPublicKeyInfo).
+     */
+    public static TicketSignatureAlgorithm fromPublicKey(byte[] encoded) throws GeneralSecurityException {
+        for (TicketSignatureAlgorithm algorithm : values()) {
+            try {
+                algorithm.decodePublicKey(encoded);
+                return algorithm;
+            } catch (GeneralSecurityException e) {
+                // пробуем следующий алгоритм
+            }
+        }
+        throw new GeneralSecurityException("Неподдерживаемый тип открытого ключа");
+    }
+}
@@ -0,0 +1,19 @@
+package ru.mtuci.pshandakov.utils;
+
+import ru.mtuci.pshandakov.model.TicketSigningKey;
+
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+
+public interface TicketSigner {
+
+    String getKeyId();
+
+    TicketSignatureAlgorithm getAlgorithm();
+
+    byte[] sign(byte[] data, int offset, int length) throws GeneralSecurityException;
+
+    boolean verify(byte[] data, int offset, int length, byte[] signature) throws GeneralSecurityException;
+
+    TicketSigningKey toSigningKey(String status, Instant createdAt, Instant retiredAt);
+}
@@ -0,0 +1,56 @@
+package ru.mtuci.pshandakov.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Корзина токенов без блокировок: capacity токенов, восполняемых равномерно за period.
+ * Состояние — одно число (алгоритм GCRA): момент, к которому корзина снова станет полной;
+ * выдача токена сдвигает его на интервал восполнения одним compareAndSet.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int capacity, Duration period, long nowNanos) {
+        this.intervalNanos = Math.max(1, period.toNanos() / capacity);
+        this.burstNanos = intervalNanos * capacity;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0, если токен выдан, иначе через сколько наносекунд появится следующий
+     */
+    public long tryAcquire(long nowNanos) {
+        return tryAcquire(nowNanos, 1);
+    }
+
+    /**
+     * Выдает tokens токенов разом или ни одного.
+     *
+     * @return 0, если токены выданы, иначе через сколько наносекунд их станет достаточно
+     */
+    public long tryAcquire(long nowNanos, int tokens) {
+        long costNanos = intervalNanos * tokens;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + costNanos;
+            long excess = next - nowNanos - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Возвращает токены, выданные {@link #tryAcquire}, если запрос все же отклонен (например, другим правилом).
+     */
+    public void release(int tokens) {
+        fullAt.addAndGet(-intervalNanos * tokens);
+    }
+}
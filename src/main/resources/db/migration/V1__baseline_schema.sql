@@ -0,0 +1,121 @@
+-- Схема в том виде, в котором ее создавал Hibernate (ddl-auto=update).
+-- На существующих базах эта миграция не выполняется: они помечаются версией 1 (baseline-on-migrate).
+-- Колонки, добавленные позже (licenses.version, ticket.key_id), вносит V6.
+
+create table users
+(
+    id       bigint not null auto_increment,
+    email    varchar(255),
+    password varchar(255),
+    role     enum ('ADMIN','USER'),
+    username varchar(255),
+    primary key (id)
+) engine = InnoDB;
+
+create table products
+(
+    id         bigint       not null auto_increment,
+    is_blocked bit          not null,
+    name       varchar(255) not null,
+    primary key (id)
+) engine = InnoDB;
+
+create table license_types
+(
+    id               bigint       not null auto_increment,
+    default_duration integer      not null,
+    description      varchar(255),
+    name             varchar(255) not null,
+    primary key (id)
+) engine = InnoDB;
+
+create table licenses
+(
+    id                    bigint           not null auto_increment,
+    blocked               bit,
+    code                  varchar(255)     not null,
+    description           varchar(255),
+    device_count          integer,
+    duration              integer,
+    ending_date           datetime(6),
+    first_activation_date datetime(6),
+    owner_id              bigint           not null,
+    product_id            bigint           not null,
+    type_id               bigint           not null,
+    user_id               bigint,
+    primary key (id),
+    constraint fk_licenses_owner foreign key (owner_id) references users (id),
+    constraint fk_licenses_product foreign key (product_id) references products (id),
+    constraint fk_licenses_type foreign key (type_id) references license_types (id),
+    constraint fk_licenses_user foreign key (user_id) references users (id)
+) engine = InnoDB;
+
+create table devices
+(
+    id          bigint not null auto_increment,
+    mac_address varchar(255),
+    name        varchar(255),
+    user_id     bigint,
+    primary key (id),
+    constraint uk_devices_mac_address unique (mac_address)
+) engine = InnoDB;
+
+create table device_license
+(
+    id              bigint not null auto_increment,
+    activation_date datetime(6),
+    device_id       bigint,
+    license_id      bigint,
+    primary key (id),
+    constraint fk_device_license_device foreign key (device_id) references devices (id),
+    constraint fk_device_license_license foreign key (license_id) references licenses (id)
+) engine = InnoDB;
+
+create table license_history
+(
+    id          bigint       not null auto_increment,
+    change_date datetime(6)  not null,
+    description varchar(255),
+    license_id  bigint       not null,
+    status      varchar(255) not null,
+    user_id     bigint       not null,
+    primary key (id)
+) engine = InnoDB;
+
+create table action_auth_reg_history
+(
+    id_action   bigint       not null auto_increment,
+    action_type varchar(255),
+    description varchar(255) not null,
+    email       varchar(255) not null,
+    time_action datetime(6)  not null,
+    username    varchar(255),
+    primary key (id_action)
+) engine = InnoDB;
+
+create table ticket
+(
+    id                bigint  not null auto_increment,
+    activation_date   datetime(6),
+    detail            varchar(255),
+    device_id         bigint,
+    digital_signature varchar(255),
+    expiration_date   datetime(6),
+    is_blocked        bit     not null,
+    server_date       datetime(6),
+    ticket_lifetime   integer not null,
+    user_id           bigint,
+    primary key (id)
+) engine = InnoDB;
+
+-- Реестр публикаций событий Spring Modulith
+create table event_publication
+(
+    id               binary(16) not null,
+    completion_date  datetime(6),
+    event_type       varchar(255),
+    listener_id      varchar(255),
+    publication_date datetime(6),
+    serialized_event varchar(255),
+    primary key (id)
+) engine = InnoDB;
@@ -0,0 +1,19 @@
+-- Индексы и ограничения под поисковые запросы репозиториев.
+-- Индексы по внешним ключам (licenses.*_id, device_license.license_id) InnoDB создает сам.
+
+-- LicenseRepository.findByCode; код лицензии уникален
+alter table licenses
+    add constraint uk_licenses_code unique (code);
+
+-- ApplicationUserRepository.findByEmail / findByUsername; регистрация запрещает повторы
+alter table users
+    add constraint uk_users_email unique (email);
+alter table users
+    add constraint uk_users_username unique (username);
+
+-- DeviceRepository.findByMacAddressAndName и проверка лицензии: поиск без чтения строки
+create index idx_devices_mac_address_name on devices (mac_address, name);
+
+-- DeviceLicenseRepository.findByDeviceId / findByDeviceIdAndLicenseId; устройство привязывается к лицензии один раз
+alter table device_license
+    add constraint uk_device_license_device_license unique (device_id, license_id);
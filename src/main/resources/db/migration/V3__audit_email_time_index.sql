@@ -0,0 +1,2 @@
+-- ActionAuthRegHistoryRepository.findByEmailAndTimeActionBetweenOrderByTimeAction
+create index idx_action_auth_reg_history_email_time on action_auth_reg_history (email, time_action);
@@ -0,0 +1,3 @@
+-- Версия токенов для отзыва JWT без обращения к users на каждый запрос
+alter table users
+    add column token_version bigint not null default 0;
@@ -0,0 +1,14 @@
+-- Идентификаторы лицензий и их истории выдаются блоками из таблицы (Hibernate TableGenerator, pooled-lo),
+-- чтобы вставки группировались в JDBC-пакеты. Значение — последний выданный идентификатор.
+create table id_sequences
+(
+    sequence_name varchar(64) not null,
+    next_val      bigint      not null,
+    primary key (sequence_name)
+);
+
+insert into id_sequences (sequence_name, next_val)
+select 'licenses', coalesce(max(id), 0) from licenses;
+
+insert into id_sequences (sequence_name, next_val)
+select 'license_history', coalesce(max(id), 0) from license_history;
@@ -0,0 +1,24 @@
+-- Колонки, появившиеся после базовой схемы: версия лицензии для оптимистической блокировки
+-- и идентификатор ключа подписи тикета. На базах, обновленных Hibernate (ddl-auto=update)
+-- до перехода на Flyway, они уже есть, поэтому добавляются только при отсутствии.
+set @ddl = (select if(count(*) = 0,
+                      'alter table licenses add column version bigint not null default 0',
+                      'do 0')
+            from information_schema.columns
+            where table_schema = database()
+              and table_name = 'licenses'
+              and column_name = 'version');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = (select if(count(*) = 0,
+                      'alter table ticket add column key_id varchar(255)',
+                      'do 0')
+            from information_schema.columns
+            where table_schema = database()
+              and table_name = 'ticket'
+              and column_name = 'key_id');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
@@ -0,0 +1,219 @@
+package ru.mtuci.pshandakov.configuration;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.mtuci.pshandakov.model.ApplicationRole;
+import ru.mtuci.pshandakov.model.ApplicationUser;
+import ru.mtuci.pshandakov.service.impl.TokenRevocationService;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret-test-secret-test";
+
+    /**
+     * Версии токенов без БД.
+     */
+    private static final class InMemoryTokenRevocationService extends TokenRevocationService {
+
+        private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+        private InMemoryTokenRevocationService() {
+            super(null, null, Duration.ofSeconds(30), 100);
+        }
+
+        @Override
+        public long getVersion(Long userId) {
+            return versions.getOrDefault(userId, 0L);
+        }
+
+        @Override
+        public boolean isCurrent(Long userId, long tokenVersion) {
+            return getVersion(userId) == tokenVersion;
+        }
+
+        @Override
+        public void revoke(Long userId) {
+            versions.merge(userId, 1L, Long::sum);
+        }
+    }
+
+    private SimpleMeterRegistry registry;
+    private InMemoryTokenRevocationService tokenRevocationService;
+    private JwtTokenProvider provider;
+    private ApplicationUser user;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        tokenRevocationService = new InMemoryTokenRevocationService();
+        provider = provider(TimeUnit.HOURS.toMillis(1));
+        user = ApplicationUser.builder()
+                .id(42L)
+                .username("user")
+                .email("user@example.com")
+                .role(ApplicationRole.USER)
+                .build();
+    }
+
+    private JwtTokenProvider provider(long expirationMillis) {
+        JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(null, tokenRevocationService, registry);
+        ReflectionTestUtils.setField(jwtTokenProvider, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "expiration", expirationMillis);
+        ReflectionTestUtils.setField(jwtTokenProvider, "stateless", true);
+        ReflectionTestUtils.setField(jwtTokenProvider, "claimsCacheMaxSize", 100L);
+        jwtTokenProvider.init();
+        return jwtTokenProvider;
+    }
+
+    @Test
+    void repeatedTokenIsServedFromClaimsCache() {
+        String token = provider.createToken(user);
+
+        Optional<Claims> first = provider.parseClaims(token);
+        Optional<Claims> second = provider.parseClaims(token);
+
+        assertThat(first).hasValueSatisfying(claims -> assertThat(claims.getSubject()).isEqualTo("user@example.com"));
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(parseCount("parsed")).isEqualTo(1);
+        assertThat(parseCount("cached")).isEqualTo(1);
+    }
+
+    @Test
+    void tamperedTokenIsRejectedAndNotCached() {
+        String token = provider.createToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(provider.parseClaims(tampered)).isEmpty();
+        assertThat(provider.parseClaims(tampered)).isEmpty();
+        assertThat(provider.parseClaims("not-a-token")).isEmpty();
+        assertThat(parseCount("invalid")).isEqualTo(3);
+    }
+
+    @Test
+    void tokenSignedWithAnotherSecretIsRejected() {
+        JwtTokenProvider other = new JwtTokenProvider(null, tokenRevocationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(other, "secret", SECRET.replace('t', 'x'));
+        ReflectionTestUtils.setField(other, "expiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(other, "claimsCacheMaxSize", 100L);
+        other.init();
+
+        assertThat(provider.validateToken(other.createToken(user))).isFalse();
+    }
+
+    @Test
+    void cachedClaimsExpireWithToken() throws InterruptedException {
+        // exp в JWT хранится с точностью до секунды
+        JwtTokenProvider shortLived = provider(2_000);
+        String token = shortLived.createToken(user);
+        assertThat(shortLived.validateToken(token)).isTrue();
+
+        Thread.sleep(2_500);
+
+        assertThat(shortLived.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void claimsAreParsedOncePerRequest() {
+        String token = provider.createToken(user);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+
+        Optional<Claims> claims = provider.getClaims(request);
+
+        assertThat(claims).isPresent();
+        assertThat(request.getAttribute(JwtTokenProvider.CLAIMS_ATTRIBUTE)).isSameAs(claims.get());
+        assertThat(provider.getClaims(request).get()).isSameAs(claims.get());
+        assertThat(parseCount("parsed") + parseCount("cached")).isEqualTo(1);
+    }
+
+    @Test
+    void requestWithoutBearerTokenHasNoClaims() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Basic dXNlcjpwYXNz");
+
+        assertThat(provider.getClaims(request)).isEmpty();
+    }
+
+    @Test
+    void statelessAuthenticationUsesClaimsWithoutUserLookup() {
+        String token = provider.createToken(user);
+
+        // UserDetailsService не задан: обращение к нему упало бы
+        Authentication authentication = provider.getAuthentication(provider.parseClaims(token).get());
+
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("user@example.com");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrderElementsOf(ApplicationRole.USER.getGrantedAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .toList());
+    }
+
+    @Test
+    void revokedTokenIsNotAuthenticated() {
+        String token = provider.createToken(user);
+        Claims claims = provider.parseClaims(token).get();
+
+        tokenRevocationService.revoke(user.getId());
+
+        assertThat(provider.getAuthentication(claims)).isNull();
+        // подпись и срок при этом в порядке: отзыв проверяется по версии, а не по кэшу claims
+        assertThat(provider.validateToken(token)).isTrue();
+    }
+
+    @Test
+    void tokenIssuedAfterRevocationIsAuthenticated() {
+        tokenRevocationService.revoke(user.getId());
+        String token = provider.createToken(user);
+
+        assertThat(provider.getAuthentication(provider.parseClaims(token).get())).isNotNull();
+    }
+
+    @Test
+    void revocationOfOneUserKeepsOtherTokens() {
+        ApplicationUser other = ApplicationUser.builder()
+                .id(43L)
+                .username("other")
+                .email("other@example.com")
+                .role(ApplicationRole.USER)
+                .build();
+        String token = provider.createToken(other);
+
+        tokenRevocationService.revoke(user.getId());
+
+        assertThat(provider.getAuthentication(provider.parseClaims(token).get())).isNotNull();
+    }
+
+    @Test
+    void statelessRequestUserComesFromClaims() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + provider.createToken(user));
+
+        Optional<ApplicationUser> fromRequest = provider.getUserFromRequest(request);
+
+        assertThat(fromRequest).hasValueSatisfying(value -> {
+            assertThat(value.getId()).isEqualTo(42L);
+            assertThat(value.getEmail()).isEqualTo("user@example.com");
+            assertThat(value.getUsername()).isEqualTo("user");
+            assertThat(value.getRole()).isEqualTo(ApplicationRole.USER);
+        });
+    }
+
+    private long parseCount(String result) {
+        return registry.get("security.jwt.parse").tag("result", result).timer().count();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.mtuci.pshandakov.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Регрессия планов запросов: поисковые запросы репозиториев на заполненной базе
+ * не должны переходить на полный просмотр таблицы.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LookupQueryPlanTest {
+
+    private static final int ROWS = 20_000;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword())
+                .load()
+                .migrate();
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("set session cte_max_recursion_depth = " + ROWS);
+            String seq = "with recursive seq(n) as (select 1 union all select n + 1 from seq where n < " + ROWS + ") ";
+
+            statement.execute("insert into products (name, is_blocked) values ('product', false)");
+            statement.execute("insert into license_types (name, default_duration) values ('type', 30)");
+            statement.execute("insert into users (email, username, password, role) " + seq +
+                    "select concat('user', n, '@example.com'), concat('user', n), 'password', 'USER' from seq");
+            statement.execute("insert into licenses (code, owner_id, user_id, product_id, type_id, device_count, blocked) " + seq +
+                    "select concat('code-', n), n, n, 1, 1, 1, false from seq");
+            statement.execute("insert into devices (mac_address, name, user_id) " + seq +
+                    "select concat('mac-', n), concat('device-', n), n from seq");
+            statement.execute("insert into device_license (device_id, license_id, activation_date) " + seq +
+                    "select n, n, now() from seq");
+            statement.execute("analyze table users, licenses, devices, device_license");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "select * from licenses where code = 'code-10000'",
+            "select * from users where email = 'user10000@example.com'",
+            "select * from users where username = 'user10000'",
+            "select * from devices where mac_address = 'mac-10000'",
+            "select * from devices where mac_address = 'mac-10000' and name = 'device-10000'",
+            "select * from device_license where device_id = 10000",
+            "select * from device_license where license_id = 10000",
+            "select * from device_license where device_id = 10000 and license_id = 10000",
+            "select l.id, d.id, u.id, l.ending_date from device_license dl " +
+                    "join devices d on d.id = dl.device_id join licenses l on l.id = dl.license_id " +
+                    "left join users u on u.id = l.user_id " +
+                    "where d.mac_address = 'mac-10000' and d.name = 'device-10000'"
+    })
+    void lookupUsesIndex(String query) throws SQLException {
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("explain " + query)) {
+            while (plan.next()) {
+                String table = plan.getString("table");
+                assertNotEquals("ALL", plan.getString("type"), "Полный просмотр таблицы " + table + ": " + query);
+                assertNotNull(plan.getString("key"), "Индекс не используется для таблицы " + table + ": " + query);
+            }
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+    }
+}
@@ -0,0 +1,218 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
+import ru.mtuci.pshandakov.service.impl.AuditService.OverflowPolicy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditServiceTest {
+
+    /**
+     * Хранилище в памяти: запоминает пакеты и может задержать или отклонить запись.
+     */
+    private static class RecordingSink implements AuditSink {
+
+        final List<List<ActionAuthRegHistory>> batches = new ArrayList<>();
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        volatile CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public void write(List<ActionAuthRegHistory> batch) {
+            writeStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (batch.stream().anyMatch(entry -> "bad".equals(entry.getDescription()))) {
+                throw new IllegalStateException("constraint violation");
+            }
+            synchronized (batches) {
+                batches.add(List.copyOf(batch));
+            }
+        }
+
+        @Override
+        public List<ActionAuthRegHistory> find(String email, LocalDateTime from, LocalDateTime to) {
+            return List.of();
+        }
+
+        List<ActionAuthRegHistory> written() {
+            synchronized (batches) {
+                return batches.stream().flatMap(List::stream).toList();
+            }
+        }
+
+        int batchCount() {
+            synchronized (batches) {
+                return batches.size();
+            }
+        }
+    }
+
+    private final RecordingSink sink = new RecordingSink();
+    private AuditService auditService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        sink.release.countDown();
+        if (auditService != null) {
+            auditService.stop();
+        }
+    }
+
+    private AuditService start(int queueCapacity, int batchSize, Duration flushInterval, OverflowPolicy overflowPolicy) {
+        return start(queueCapacity, batchSize, flushInterval, overflowPolicy, Duration.ofSeconds(5));
+    }
+
+    private AuditService start(int queueCapacity, int batchSize, Duration flushInterval, OverflowPolicy overflowPolicy,
+                               Duration offerTimeout) {
+        auditService = new AuditService(sink, queueCapacity, batchSize, flushInterval, overflowPolicy, offerTimeout,
+                new SimpleMeterRegistry());
+        auditService.start();
+        return auditService;
+    }
+
+    @Test
+    void fullBatchIsWrittenWithoutWaitingForInterval() throws InterruptedException {
+        start(100, 3, Duration.ofMinutes(1), OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 3; i++) {
+            auditService.record(entry("action " + i));
+        }
+
+        awaitTrue(() -> sink.written().size() == 3);
+        assertThat(sink.batchCount()).isEqualTo(1);
+    }
+
+    @Test
+    void partialBatchIsWrittenAfterInterval() throws InterruptedException {
+        start(100, 100, Duration.ofMillis(100), OverflowPolicy.BLOCK);
+
+        auditService.record(entry("login"));
+
+        awaitTrue(() -> sink.written().size() == 1);
+        assertThat(sink.written().get(0).getDescription()).isEqualTo("login");
+    }
+
+    @Test
+    void dropPolicyDiscardsEntriesWhenQueueIsFull() throws InterruptedException {
+        sink.release = new CountDownLatch(1);
+        start(1, 1, Duration.ofMinutes(1), OverflowPolicy.DROP);
+
+        auditService.record(entry("first"));
+        assertThat(sink.writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // первая запись в хранилище, вторая занимает очередь, третья отбрасывается
+        auditService.record(entry("second"));
+        auditService.record(entry("third"));
+
+        assertThat(auditService.getDroppedCount()).isEqualTo(1);
+        sink.release.countDown();
+        awaitTrue(() -> sink.written().size() == 2);
+        assertThat(sink.written()).extracting(ActionAuthRegHistory::getDescription).containsExactly("first", "second");
+    }
+
+    @Test
+    void blockPolicyDropsEntryAfterOfferTimeout() throws InterruptedException {
+        sink.release = new CountDownLatch(1);
+        start(1, 1, Duration.ofMinutes(1), OverflowPolicy.BLOCK, Duration.ofMillis(100));
+
+        auditService.record(entry("first"));
+        assertThat(sink.writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        auditService.record(entry("second"));
+        long start = System.nanoTime();
+        auditService.record(entry("third"));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(100), Duration.ofSeconds(5));
+        assertThat(auditService.getDroppedCount()).isEqualTo(1);
+        sink.release.countDown();
+        awaitTrue(() -> sink.written().size() == 2);
+        assertThat(sink.written()).extracting(ActionAuthRegHistory::getDescription).containsExactly("first", "second");
+    }
+
+    @Test
+    void recordAfterStopDoesNotWaitForQueue() throws InterruptedException {
+        start(1, 1, Duration.ofMinutes(1), OverflowPolicy.BLOCK, Duration.ofMinutes(1));
+        auditService.stop();
+
+        long start = System.nanoTime();
+        auditService.record(entry("late"));
+        auditService.record(entry("later"));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(auditService.getDroppedCount()).isEqualTo(1);
+        auditService = null;
+    }
+
+    @Test
+    void stopWritesEverythingStillQueued() throws InterruptedException {
+        start(1_000, 1_000, Duration.ofMinutes(1), OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 500; i++) {
+            auditService.record(entry("action " + i));
+        }
+        auditService.stop();
+        auditService = null;
+
+        assertThat(sink.written()).hasSize(500);
+    }
+
+    @Test
+    void failedBatchIsRetriedEntryByEntry() throws InterruptedException {
+        start(100, 3, Duration.ofMinutes(1), OverflowPolicy.BLOCK);
+
+        auditService.record(entry("first"));
+        auditService.record(entry("bad"));
+        auditService.record(entry("third"));
+
+        awaitTrue(() -> sink.written().size() == 2);
+        assertThat(sink.written()).extracting(ActionAuthRegHistory::getDescription).containsExactly("first", "third");
+        assertThat(auditService.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesAreFittedToTableConstraints() throws InterruptedException {
+        start(100, 1, Duration.ofMinutes(1), OverflowPolicy.BLOCK);
+
+        ActionAuthRegHistory entry = ActionAuthRegHistory.builder()
+                .description("x".repeat(1_000))
+                .build();
+        auditService.record(entry);
+        auditService.record(null);
+
+        awaitTrue(() -> sink.written().size() == 1);
+        ActionAuthRegHistory written = sink.written().get(0);
+        assertThat(written.getEmail()).isEmpty();
+        assertThat(written.getDescription()).hasSize(255);
+        assertThat(written.getTimeAction()).isNotNull();
+    }
+
+    private static ActionAuthRegHistory entry(String description) {
+        return ActionAuthRegHistory.builder()
+                .email("user@example.com")
+                .username("user")
+                .description(description)
+                .actionType("TEST")
+                .timeAction(LocalDateTime.now())
+                .build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("ожидание записи журнала").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
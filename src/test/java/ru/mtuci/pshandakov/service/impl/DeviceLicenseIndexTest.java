@@ -0,0 +1,169 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.mtuci.pshandakov.model.DeviceLicenseIndexView;
+import ru.mtuci.pshandakov.model.LicenseCheckRequest;
+import ru.mtuci.pshandakov.model.LicenseCheckView;
+import ru.mtuci.pshandakov.repository.DeviceLicenseRepository;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeviceLicenseIndexTest {
+
+    private record View(Long licenseId, Long deviceId, Long userId, Date endingDate, String macAddress,
+                        String deviceName) implements DeviceLicenseIndexView {
+
+        @Override
+        public Long getLicenseId() {
+            return licenseId;
+        }
+
+        @Override
+        public Long getDeviceId() {
+            return deviceId;
+        }
+
+        @Override
+        public Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public Date getEndingDate() {
+            return endingDate;
+        }
+
+        @Override
+        public String getMacAddress() {
+            return macAddress;
+        }
+
+        @Override
+        public String getDeviceName() {
+            return deviceName;
+        }
+    }
+
+    private static final View PC = new View(1L, 10L, 100L, new Date(), "AA", "pc");
+    private static final View LAPTOP = new View(2L, 20L, 100L, new Date(), "BB", "laptop");
+
+    private DeviceLicenseRepository repository;
+    private DeviceLicenseIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(DeviceLicenseRepository.class);
+        index = new DeviceLicenseIndex(repository, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void warmedUpEntryIsServedWithoutDatabase() {
+        when(repository.findAllIndexViews()).thenReturn(List.of(PC));
+        index.warmUp();
+
+        Optional<LicenseCheckView> found = index.find("AA", "pc");
+
+        assertThat(found).hasValueSatisfying(view -> assertThat(view.getLicenseId()).isEqualTo(1L));
+        verify(repository, never()).findCheckView(any(), any());
+        assertThat(index.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void missIsLoadedOnceAndThenServedFromIndex() {
+        when(repository.findCheckView("AA", "pc")).thenReturn(Optional.of(PC));
+
+        assertThat(index.find("AA", "pc")).isPresent();
+        assertThat(index.find("AA", "pc")).isPresent();
+
+        verify(repository, times(1)).findCheckView("AA", "pc");
+        assertThat(index.getStats().getMisses()).isEqualTo(1);
+        assertThat(index.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void refreshLicenseDropsDeletedBindings() {
+        when(repository.findAllIndexViews()).thenReturn(List.of(PC, LAPTOP));
+        index.warmUp();
+        when(repository.findIndexViewsByLicenseId(1L)).thenReturn(List.of());
+
+        index.refreshLicense(1L);
+
+        assertThat(index.find("AA", "pc")).isEmpty();
+        assertThat(index.find("BB", "laptop")).isPresent();
+        verify(repository).findCheckView("AA", "pc");
+    }
+
+    @Test
+    void refreshDeviceReloadsRenamedDevice() {
+        when(repository.findAllIndexViews()).thenReturn(List.of(PC));
+        index.warmUp();
+        View renamed = new View(1L, 10L, 100L, PC.getEndingDate(), "AA", "workstation");
+        when(repository.findIndexViewsByDeviceId(10L)).thenReturn(List.of(renamed));
+
+        index.refreshDevice(10L);
+
+        assertThat(index.find("AA", "workstation")).isPresent();
+        assertThat(index.find("AA", "pc")).isEmpty();
+    }
+
+    @Test
+    void missLoadedDuringInvalidationIsNotCached() {
+        when(repository.findCheckView("AA", "pc")).thenAnswer(invocation -> {
+            // привязка удаляется, пока промах читает БД
+            index.refreshLicense(1L);
+            return Optional.of(PC);
+        });
+
+        index.find("AA", "pc");
+        index.find("AA", "pc");
+
+        verify(repository, times(2)).findCheckView("AA", "pc");
+    }
+
+    @Test
+    void staleEntryIsReloadedAndRemovedWhenBindingIsGone() throws InterruptedException {
+        index = new DeviceLicenseIndex(repository, Duration.ofMillis(50));
+        when(repository.findAllIndexViews()).thenReturn(List.of(PC));
+        index.warmUp();
+        when(repository.findCheckView("AA", "pc")).thenReturn(Optional.empty());
+
+        Thread.sleep(100);
+
+        assertThat(index.find("AA", "pc")).isEmpty();
+        assertThat(index.getStats().getSize()).isZero();
+    }
+
+    @Test
+    void findAllKeepsOrderAndLoadsMissesInOneQuery() {
+        when(repository.findAllIndexViews()).thenReturn(List.of(PC));
+        index.warmUp();
+        when(repository.findIndexViewsByMacAddresses(anyCollection())).thenReturn(List.of(LAPTOP));
+
+        List<LicenseCheckView> found = index.findAll(List.of(
+                request("BB", "laptop"), request("CC", "unknown"), request("AA", "pc")));
+
+        assertThat(found).hasSize(3);
+        assertThat(found.get(0).getLicenseId()).isEqualTo(2L);
+        assertThat(found.get(1)).isNull();
+        assertThat(found.get(2).getLicenseId()).isEqualTo(1L);
+        verify(repository, times(1)).findIndexViewsByMacAddresses(anyCollection());
+        assertThat(index.find("BB", "laptop")).isPresent();
+    }
+
+    private static LicenseCheckRequest request(String macAddress, String deviceName) {
+        return new LicenseCheckRequest(macAddress, deviceName);
+    }
+}
@@ -0,0 +1,125 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.mtuci.pshandakov.repository.LicenseRepository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LicenseCodeGeneratorTest {
+
+    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+
+    private LicenseRepository licenseRepository;
+    private LicenseCodeGenerator generator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        licenseRepository = mock(LicenseRepository.class);
+        when(licenseRepository.findExistingCodes(anyCollection())).thenReturn(List.of());
+        generator = new LicenseCodeGenerator(licenseRepository, 100, 0, 10, "test-checksum-key");
+    }
+
+    @Test
+    void generatedCodeHasFixedLengthAndAlphabet() {
+        for (int i = 0; i < 1_000; i++) {
+            String code = generator.generate();
+
+            assertThat(code).hasSize(LicenseCodeGenerator.CODE_LENGTH);
+            assertThat(code.chars()).allMatch(c -> ALPHABET.indexOf(c) >= 0);
+            assertThat(LicenseCodeGenerator.isWellFormed(code)).isTrue();
+        }
+    }
+
+    @Test
+    void generatedCodesDoNotRepeat() {
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            codes.add(generator.generate());
+        }
+
+        assertThat(codes).hasSize(10_000);
+    }
+
+    @Test
+    void nextCodesSkipCodesAlreadyInDatabase() {
+        when(licenseRepository.findExistingCodes(anyCollection())).thenAnswer(invocation -> {
+            // первый код каждой пачки уже занят
+            Collection<String> codes = invocation.getArgument(0);
+            return List.of(codes.iterator().next());
+        }).thenReturn(List.of());
+
+        List<String> codes = generator.nextCodes(5);
+
+        assertThat(codes).hasSize(5).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void nextCodeWorksWithEmptyPool() {
+        assertThat(generator.getPoolSize()).isZero();
+
+        assertThat(LicenseCodeGenerator.isWellFormed(generator.nextCode())).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedCodes() {
+        assertThat(LicenseCodeGenerator.isWellFormed(null)).isFalse();
+        assertThat(LicenseCodeGenerator.isWellFormed("ABC")).isFalse();
+        // 0, O, 1 и I исключены из алфавита
+        assertThat(LicenseCodeGenerator.isWellFormed("0".repeat(LicenseCodeGenerator.CODE_LENGTH))).isFalse();
+        assertThat(LicenseCodeGenerator.isWellFormed("a".repeat(LicenseCodeGenerator.CODE_LENGTH))).isFalse();
+        assertThat(LicenseCodeGenerator.isWellFormed("Ж".repeat(LicenseCodeGenerator.CODE_LENGTH))).isFalse();
+    }
+
+    @Test
+    void generatedCodeHasValidChecksum() {
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(generator.hasValidChecksum(generator.generate())).isTrue();
+        }
+    }
+
+    @Test
+    void changedCharacterBreaksChecksum() {
+        String code = generator.generate();
+
+        for (int position = 0; position < LicenseCodeGenerator.CODE_LENGTH; position++) {
+            char replacement = code.charAt(position) == 'A' ? 'B' : 'A';
+            String changed = code.substring(0, position) + replacement + code.substring(position + 1);
+
+            assertThat(generator.hasValidChecksum(changed)).as("позиция %d", position).isFalse();
+        }
+    }
+
+    @Test
+    void checksumDependsOnKey() throws Exception {
+        LicenseCodeGenerator sameKey = new LicenseCodeGenerator(licenseRepository, 1, 0, 1, "test-checksum-key");
+        LicenseCodeGenerator otherKey = new LicenseCodeGenerator(licenseRepository, 1, 0, 1, "other-checksum-key");
+        String code = generator.generate();
+
+        assertThat(sameKey.hasValidChecksum(code)).isTrue();
+        assertThat(otherKey.hasValidChecksum(code)).isFalse();
+    }
+
+    @Test
+    void malformedCodeHasNoValidChecksum() {
+        assertThat(generator.hasValidChecksum(null)).isFalse();
+        assertThat(generator.hasValidChecksum("legacy-code")).isFalse();
+    }
+
+    @Test
+    void missingChecksumKeyFailsStartup() {
+        assertThatThrownBy(() -> new LicenseCodeGenerator(licenseRepository, 1, 0, 1, " "))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new LicenseCodeGenerator(licenseRepository, 1, 0, 1, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
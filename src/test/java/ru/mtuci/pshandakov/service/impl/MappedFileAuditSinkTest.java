@@ -0,0 +1,290 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.mtuci.pshandakov.model.ActionAuthRegHistory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedFileAuditSinkTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2100, 1, 1, 0, 0);
+    private static final LocalDateTime TIME = LocalDateTime.of(2026, 5, 1, 12, 30, 15, 123_456_789);
+
+    @TempDir
+    Path directory;
+
+    private MappedFileAuditSink sink;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sink != null) {
+            sink.close();
+        }
+    }
+
+    private MappedFileAuditSink open(DataSize segmentSize, Duration retention) throws IOException {
+        if (sink != null) {
+            sink.close();
+        }
+        sink = new MappedFileAuditSink(directory.toString(), segmentSize, retention);
+        sink.open();
+        return sink;
+    }
+
+    private MappedFileAuditSink open() throws IOException {
+        return open(DataSize.ofKilobytes(64), Duration.ofDays(30));
+    }
+
+    @Test
+    void writtenEntriesAreReadBackWithAllFields() throws IOException {
+        open();
+        ActionAuthRegHistory entry = ActionAuthRegHistory.builder()
+                .email("user@example.com")
+                .username(null)
+                .description("Вход выполнен ✓")
+                .actionType("LOGIN")
+                .timeAction(TIME)
+                .build();
+
+        sink.write(List.of(entry));
+
+        List<ActionAuthRegHistory> found = sink.find("user@example.com", FROM, TO);
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getEmail()).isEqualTo("user@example.com");
+        assertThat(found.get(0).getUsername()).isNull();
+        assertThat(found.get(0).getDescription()).isEqualTo("Вход выполнен ✓");
+        assertThat(found.get(0).getActionType()).isEqualTo("LOGIN");
+        assertThat(found.get(0).getTimeAction()).isEqualTo(TIME);
+    }
+
+    @Test
+    void findFiltersByEmailAndTimeRangeInclusively() throws IOException {
+        open();
+        sink.write(List.of(
+                entry("user@example.com", TIME.plusMinutes(2), "later"),
+                entry("user@example.com", TIME, "at from"),
+                entry("other@example.com", TIME.plusMinutes(1), "other user"),
+                entry("user@example.com", TIME.plusMinutes(5), "at to"),
+                entry("user@example.com", TIME.plusMinutes(6), "after to")));
+
+        List<ActionAuthRegHistory> found = sink.find("user@example.com", TIME, TIME.plusMinutes(5));
+
+        assertThat(found).extracting(ActionAuthRegHistory::getDescription).containsExactly("at from", "later", "at to");
+    }
+
+    @Test
+    void rotatesToNewSegmentWhenFull() throws IOException {
+        open(DataSize.ofBytes(512), Duration.ofDays(30));
+
+        List<ActionAuthRegHistory> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entries.add(entry("user@example.com", TIME.plusSeconds(i), "action " + i));
+        }
+        for (ActionAuthRegHistory entry : entries) {
+            sink.write(List.of(entry));
+        }
+
+        assertThat(segments()).hasSizeGreaterThan(1);
+        assertThat(sink.find("user@example.com", FROM, TO)).hasSize(20);
+    }
+
+    @Test
+    void entryLargerThanSegmentIsSkipped() throws IOException {
+        open(DataSize.ofBytes(256), Duration.ofDays(30));
+
+        sink.write(List.of(entry("user@example.com", TIME, "x".repeat(1_000)), entry("user@example.com", TIME, "small")));
+
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("small");
+    }
+
+    @Test
+    void reopenContinuesAfterLastRecord() throws IOException {
+        open();
+        sink.write(List.of(entry("user@example.com", TIME, "before restart")));
+
+        open();
+        sink.write(List.of(entry("user@example.com", TIME.plusSeconds(1), "after restart")));
+
+        assertThat(segments()).hasSize(1);
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("before restart", "after restart");
+    }
+
+    @Test
+    void reopenAfterPartiallyWrittenRecordOverwritesIt() throws IOException {
+        open();
+        sink.write(List.of(entry("user@example.com", TIME, "complete")));
+        sink.write(List.of(entry("user@example.com", TIME.plusSeconds(1), "torn")));
+        sink.close();
+        sink = null;
+
+        // запись оборвалась: длина на месте, а данные записаны не полностью
+        Path segment = segments().get(0);
+        int tornPosition = recordPositions(segment).get(1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F, 0x7F, 0x7F, 0x7F}), tornPosition + 8 + 12);
+        }
+
+        open();
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("complete");
+
+        sink.write(List.of(entry("user@example.com", TIME.plusSeconds(2), "after recovery")));
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("complete", "after recovery");
+    }
+
+    @Test
+    void failedBatchIsRolledBack() throws IOException {
+        open();
+        sink.write(List.of(entry("user@example.com", TIME, "kept")));
+
+        // запись без времени действия не кодируется: пакет откатывается целиком
+        ActionAuthRegHistory broken = ActionAuthRegHistory.builder().email("user@example.com").description("broken").build();
+        assertThatThrownBy(() -> sink.write(List.of(entry("user@example.com", TIME.plusSeconds(1), "rolled back"), broken)))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("kept");
+
+        sink.write(List.of(entry("user@example.com", TIME.plusSeconds(2), "next")));
+        open();
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("kept", "next");
+    }
+
+    @Test
+    void rolledBackRecordsDoNotReappearAfterNextWrite() throws IOException {
+        open();
+        ActionAuthRegHistory broken = ActionAuthRegHistory.builder().email("user@example.com").description("broken").build();
+        assertThatThrownBy(() -> sink.write(List.of(
+                entry("user@example.com", TIME, "rolled back 1"),
+                entry("user@example.com", TIME, "rolled back 2"),
+                broken)))
+                .isInstanceOf(RuntimeException.class);
+
+        // запись той же длины, что и первая откаченная: за ней не должна снова читаться вторая
+        sink.write(List.of(entry("user@example.com", TIME, "replacement 1")));
+
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("replacement 1");
+        open();
+        sink.write(List.of(entry("user@example.com", TIME.plusSeconds(1), "after reopen")));
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .containsExactly("replacement 1", "after reopen");
+    }
+
+    @Test
+    void failedBatchIsRolledBackInSegmentOpenedDuringIt() throws IOException {
+        open(DataSize.ofBytes(512), Duration.ofDays(30));
+        List<ActionAuthRegHistory> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(entry("user@example.com", TIME.plusSeconds(i), "action " + i));
+        }
+        batch.add(ActionAuthRegHistory.builder().email("user@example.com").description("broken").build());
+
+        assertThatThrownBy(() -> sink.write(batch)).isInstanceOf(RuntimeException.class);
+
+        // записи предыдущих сегментов остаются, записи последнего сегмента откатываются
+        List<String> kept = sink.find("user@example.com", FROM, TO).stream()
+                .map(ActionAuthRegHistory::getDescription)
+                .toList();
+        assertThat(segments()).hasSizeGreaterThan(1);
+        assertThat(kept).hasSizeLessThan(20);
+        assertThat(kept).isEqualTo(batch.subList(0, kept.size()).stream().map(ActionAuthRegHistory::getDescription).toList());
+
+        open(DataSize.ofBytes(512), Duration.ofDays(30));
+        sink.write(List.of(entry("user@example.com", TIME.plusSeconds(30), "after reopen")));
+        assertThat(sink.find("user@example.com", FROM, TO)).extracting(ActionAuthRegHistory::getDescription)
+                .endsWith("after reopen")
+                .hasSize(kept.size() + 1);
+    }
+
+    @Test
+    void retentionDeletesSegmentsOnlyWhenNextSegmentIsOlderThanCutoff() throws IOException {
+        open(DataSize.ofBytes(512), Duration.ofDays(30));
+        for (int i = 0; i < 30 && segments().size() < 4; i++) {
+            sink.write(List.of(entry("user@example.com", TIME.plusSeconds(i), "action " + i)));
+        }
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(4);
+
+        LocalDateTime now = LocalDateTime.now();
+        setOpenedAt(segments.get(0), now.minusDays(90));
+        setOpenedAt(segments.get(1), now.minusDays(60));
+        setOpenedAt(segments.get(2), now.minusDays(10));
+
+        sink.applyRetention();
+
+        // первый сегмент закрыт 60 дней назад, второй — 10 дней назад и еще хранится
+        assertThat(segments()).containsExactly(segments.get(1), segments.get(2), segments.get(3));
+    }
+
+    @Test
+    void findSkipsSegmentsClosedBeforeFrom() throws IOException {
+        open(DataSize.ofBytes(512), Duration.ofDays(30));
+        for (int i = 0; i < 30 && segments().size() < 2; i++) {
+            sink.write(List.of(entry("user@example.com", TIME.plusSeconds(i), "action " + i)));
+        }
+        List<Path> segments = segments();
+        setOpenedAt(segments.get(1), TIME.minusDays(1));
+
+        // записи первого сегмента сделаны до открытия второго и не могут попасть в диапазон
+        assertThat(sink.find("user@example.com", TIME.minusHours(1), TO))
+                .isNotEmpty()
+                .allMatch(entry -> !entry.getDescription().equals("action 0"));
+    }
+
+    private static ActionAuthRegHistory entry(String email, LocalDateTime time, String description) {
+        return ActionAuthRegHistory.builder()
+                .email(email)
+                .username("user")
+                .description(description)
+                .actionType("TEST")
+                .timeAction(time)
+                .build();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<Integer> recordPositions(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<Integer> positions = new ArrayList<>();
+        int position = 16;
+        while (position + 8 <= buffer.limit() && buffer.getInt(position) > 0) {
+            positions.add(position);
+            position += 8 + buffer.getInt(position);
+        }
+        return positions;
+    }
+
+    private static void setOpenedAt(Path segment, LocalDateTime openedAt) throws IOException {
+        ByteBuffer millis = ByteBuffer.allocate(8).putLong(0, openedAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(millis, 8);
+        }
+    }
+}
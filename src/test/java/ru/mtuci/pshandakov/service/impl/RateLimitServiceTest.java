@@ -0,0 +1,122 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.mtuci.pshandakov.exception.RateLimitExceededException;
+import ru.mtuci.pshandakov.model.RateLimitStats;
+import ru.mtuci.pshandakov.service.impl.RateLimitService.Policy;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitServiceTest {
+
+    private static RateLimitService service(String login, String check) {
+        return new RateLimitService(true, 1_000, login, check, "");
+    }
+
+    @Test
+    void parsesRulesFromSpec() {
+        RateLimitService service = service(" ip:30/PT1M , email:10/PT1H", "mac:5/PT10S");
+
+        assertThat(stats(service, Policy.LOGIN).getRules()).isEqualTo("ip:30/PT1M,email:10/PT1H");
+        assertThat(stats(service, Policy.CHECK).getRules()).isEqualTo("mac:5/PT10S");
+        assertThat(stats(service, Policy.ACTIVATION).getRules()).isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThatThrownBy(() -> service("ip30/PT1M", ""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service("ip:0/PT1M", ""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service("ip:1/PT0S", ""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service("host:1/PT1M", ""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service("ip:1/minute", ""))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void rejectsWhenIpBucketIsEmpty() {
+        RateLimitService service = service("ip:2/PT1M", "");
+
+        service.check(Policy.LOGIN, "10.0.0.1", null, null);
+        service.check(Policy.LOGIN, "10.0.0.1", null, null);
+
+        assertThatThrownBy(() -> service.check(Policy.LOGIN, "10.0.0.1", null, null))
+                .isInstanceOfSatisfying(RateLimitExceededException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isBetween(1L, 30L));
+        assertThatCode(() -> service.check(Policy.LOGIN, "10.0.0.2", null, null)).doesNotThrowAnyException();
+
+        assertThat(stats(service, Policy.LOGIN).getAllowed()).isEqualTo(3);
+        assertThat(stats(service, Policy.LOGIN).getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void emailIsCaseInsensitiveAndSkippedWhenMissing() {
+        RateLimitService service = service("email:1/PT1M", "");
+
+        service.check(Policy.LOGIN, "10.0.0.1", "User@Example.com", null);
+        service.check(Policy.LOGIN, "10.0.0.1", null, null);
+
+        assertThatThrownBy(() -> service.check(Policy.LOGIN, "10.0.0.2", "user@example.com", null))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void rejectionRefundsTokensTakenByOtherRules() {
+        RateLimitService service = service("", "ip:2/PT1M,mac:1/PT1M");
+
+        service.check(Policy.CHECK, "10.0.0.1", null, "AA:BB");
+        // MAC исчерпан: токен по IP не должен быть потрачен
+        assertThatThrownBy(() -> service.check(Policy.CHECK, "10.0.0.1", null, "aa:bb"))
+                .isInstanceOf(RateLimitExceededException.class);
+
+        assertThatCode(() -> service.check(Policy.CHECK, "10.0.0.1", null, "CC:DD")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void batchIsChargedPerItem() {
+        RateLimitService service = service("", "ip:3/PT1M,mac:2/PT1M");
+
+        assertThatThrownBy(() -> service.checkBatch(Policy.CHECK, "10.0.0.1", null, List.of("AA", "BB", "CC", "DD")))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThatThrownBy(() -> service.checkBatch(Policy.CHECK, "10.0.0.2", null, List.of("AA", "aa", "AA")))
+                .isInstanceOf(RateLimitExceededException.class);
+
+        service.checkBatch(Policy.CHECK, "10.0.0.1", null, List.of("AA", "BB", "CC"));
+        assertThatThrownBy(() -> service.check(Policy.CHECK, "10.0.0.1", null, "EE"))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void emptyBatchCostsOneToken() {
+        RateLimitService service = service("", "ip:1/PT1M");
+
+        service.checkBatch(Policy.CHECK, "10.0.0.1", null, Collections.emptyList());
+
+        assertThatThrownBy(() -> service.checkBatch(Policy.CHECK, "10.0.0.1", null, Collections.emptyList()))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void disabledServiceAllowsEverything() {
+        RateLimitService service = new RateLimitService(false, 1_000, "ip:1/PT1M", "", "");
+
+        for (int i = 0; i < 10; i++) {
+            service.check(Policy.LOGIN, "10.0.0.1", null, null);
+        }
+    }
+
+    private static RateLimitStats stats(RateLimitService service, Policy policy) {
+        return service.getStats().stream()
+                .filter(stats -> stats.getPolicy().equals(policy.name()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
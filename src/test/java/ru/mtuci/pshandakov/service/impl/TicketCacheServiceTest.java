@@ -0,0 +1,90 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.mtuci.pshandakov.model.Ticket;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketCacheServiceTest {
+
+    private final TicketCacheService cache = new TicketCacheService(100, Duration.ofMinutes(5));
+
+    @Test
+    void returnsCachedTicketForSameLicenseAndDevice() {
+        Ticket ticket = ticket(LocalDateTime.now(), 2, daysFromNow(30));
+        cache.putTicket(1L, 10L, ticket);
+
+        assertThat(cache.getTicket(1L, 10L)).containsSame(ticket);
+        assertThat(cache.getTicket(1L, 11L)).isEmpty();
+        assertThat(cache.getTicket(2L, 10L)).isEmpty();
+    }
+
+    @Test
+    void ticketPastItsLifetimeIsNotReturned() {
+        cache.putTicket(1L, 10L, ticket(LocalDateTime.now().minusDays(3), 2, daysFromNow(30)));
+
+        assertThat(cache.getTicket(1L, 10L)).isEmpty();
+    }
+
+    @Test
+    void ticketOfExpiredLicenseIsNotReturned() {
+        cache.putTicket(1L, 10L, ticket(LocalDateTime.now(), 2, new Date(System.currentTimeMillis() - 1_000)));
+
+        assertThat(cache.getTicket(1L, 10L)).isEmpty();
+    }
+
+    @Test
+    void ticketExpiresAfterMaxAge() throws InterruptedException {
+        TicketCacheService shortLived = new TicketCacheService(100, Duration.ofMillis(100));
+        shortLived.putTicket(1L, 10L, ticket(LocalDateTime.now(), 2, daysFromNow(30)));
+        assertThat(shortLived.getTicket(1L, 10L)).isPresent();
+
+        Thread.sleep(300);
+
+        assertThat(shortLived.getTicket(1L, 10L)).isEmpty();
+    }
+
+    @Test
+    void evictLicenseRemovesAllDevicesOfLicense() {
+        cache.putTicket(1L, 10L, ticket(LocalDateTime.now(), 2, daysFromNow(30)));
+        cache.putTicket(1L, 11L, ticket(LocalDateTime.now(), 2, daysFromNow(30)));
+        cache.putTicket(2L, 10L, ticket(LocalDateTime.now(), 2, daysFromNow(30)));
+
+        cache.evictLicense(1L);
+
+        assertThat(cache.getTicket(1L, 10L)).isEmpty();
+        assertThat(cache.getTicket(1L, 11L)).isEmpty();
+        assertThat(cache.getTicket(2L, 10L)).isPresent();
+    }
+
+    @Test
+    void evictDeviceRemovesAllLicensesOfDevice() {
+        cache.putTicket(1L, 10L, ticket(LocalDateTime.now(), 2, daysFromNow(30)));
+        cache.putTicket(2L, 10L, ticket(LocalDateTime.now(), 2, daysFromNow(30)));
+        cache.putTicket(1L, 11L, ticket(LocalDateTime.now(), 2, daysFromNow(30)));
+
+        cache.evictDevice(10L);
+        cache.evictDevice(null);
+
+        assertThat(cache.getTicket(1L, 10L)).isEmpty();
+        assertThat(cache.getTicket(2L, 10L)).isEmpty();
+        assertThat(cache.getTicket(1L, 11L)).isPresent();
+    }
+
+    private static Ticket ticket(LocalDateTime serverDate, int lifetimeDays, Date expirationDate) {
+        return Ticket.builder()
+                .serverDate(serverDate)
+                .ticketLifetime(lifetimeDays)
+                .expirationDate(expirationDate)
+                .build();
+    }
+
+    private static Date daysFromNow(int days) {
+        return new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(days));
+    }
+}
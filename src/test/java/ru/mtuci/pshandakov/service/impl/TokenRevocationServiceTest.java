@@ -0,0 +1,88 @@
+package ru.mtuci.pshandakov.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserCacheService userCacheService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        userCacheService = mock(UserCacheService.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(42L))).thenReturn(List.of(3L));
+    }
+
+    private TokenRevocationService service(Duration ttl) {
+        return new TokenRevocationService(jdbcTemplate, userCacheService, ttl, 100);
+    }
+
+    @Test
+    void versionIsReadOnceWithinTtl() {
+        TokenRevocationService service = service(Duration.ofMinutes(1));
+
+        assertThat(service.isCurrent(42L, 3)).isTrue();
+        assertThat(service.isCurrent(42L, 3)).isTrue();
+        assertThat(service.isCurrent(42L, 2)).isFalse();
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq(42L));
+    }
+
+    @Test
+    void changeOnAnotherNodeIsSeenAfterTtl() throws InterruptedException {
+        TokenRevocationService service = service(Duration.ofMillis(50));
+        assertThat(service.isCurrent(42L, 3)).isTrue();
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(42L))).thenReturn(List.of(4L));
+
+        Thread.sleep(100);
+
+        assertThat(service.isCurrent(42L, 3)).isFalse();
+        assertThat(service.getVersion(42L)).isEqualTo(4);
+        verify(userCacheService).evict(42L);
+    }
+
+    @Test
+    void reloadWithSameVersionKeepsUserCache() throws InterruptedException {
+        TokenRevocationService service = service(Duration.ofMillis(50));
+        service.getVersion(42L);
+
+        Thread.sleep(100);
+
+        assertThat(service.getVersion(42L)).isEqualTo(3);
+        verify(userCacheService, never()).evict(42L);
+    }
+
+    @Test
+    void deletedUserHasNoCurrentToken() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(43L))).thenReturn(List.of());
+
+        assertThat(service(Duration.ofMinutes(1)).isCurrent(43L, 0)).isFalse();
+    }
+
+    @Test
+    void revokeIsVisibleImmediately() {
+        TokenRevocationService service = service(Duration.ofMinutes(1));
+        assertThat(service.isCurrent(42L, 3)).isTrue();
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(42L))).thenReturn(List.of(4L));
+
+        service.revoke(42L);
+
+        assertThat(service.isCurrent(42L, 3)).isFalse();
+        assertThat(service.isCurrent(42L, 4)).isTrue();
+    }
+}
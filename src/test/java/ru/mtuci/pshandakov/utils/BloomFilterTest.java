@@ -0,0 +1,83 @@
+package ru.mtuci.pshandakov.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 20_000;
+    private static final int PROBES = 200_000;
+
+    @Test
+    void hasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("code-" + i);
+        }
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("code-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysWithinBound() {
+        for (double rate : new double[]{0.01, 0.001}) {
+            BloomFilter filter = new BloomFilter(INSERTIONS, rate);
+            for (int i = 0; i < INSERTIONS; i++) {
+                filter.put("code-" + i);
+            }
+
+            int falsePositives = 0;
+            for (int i = 0; i < PROBES; i++) {
+                if (filter.mightContain("other-" + i)) {
+                    falsePositives++;
+                }
+            }
+
+            // запас на случайный разброс относительно расчетной доли
+            assertThat((double) falsePositives / PROBES).as("доля для %s", rate).isLessThanOrEqualTo(rate * 1.5);
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.001);
+
+        assertThat(filter.mightContain("code")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws Exception {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int first = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < INSERTIONS; i += 4) {
+                        filter.put("code-" + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("code-" + i)).isTrue();
+        }
+    }
+}
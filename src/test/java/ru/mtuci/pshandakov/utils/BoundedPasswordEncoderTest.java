@@ -0,0 +1,139 @@
+package ru.mtuci.pshandakov.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.mtuci.pshandakov.exception.PasswordHashingRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    /**
+     * Хеширует, только когда тест разрешит: так пул и очередь можно заполнить детерминированно.
+     */
+    private static final class BlockingEncoder implements PasswordEncoder {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    }
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void delegatesEncodeAndMatches() {
+        BlockingEncoder delegate = new BlockingEncoder();
+        delegate.release.countDown();
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(5));
+
+        assertThat(encoder.encode("secret")).isEqualTo("hash:secret");
+        assertThat(encoder.matches("secret", "hash:secret")).isTrue();
+        assertThat(encoder.matches("other", "hash:secret")).isFalse();
+        assertThat(encoder.getStats().getCompleted()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsImmediatelyWhenPoolAndQueueAreFull() throws Exception {
+        BlockingEncoder delegate = new BlockingEncoder();
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(30));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertThat(delegate.started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        waitForQueueDepth(1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.encode("third")).isInstanceOf(PasswordHashingRejectedException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(encoder.getStats().getRejected()).isEqualTo(1);
+
+        delegate.release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:second");
+    }
+
+    @Test
+    void rejectsWhenHashingTakesLongerThanTimeout() {
+        BlockingEncoder delegate = new BlockingEncoder();
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofMillis(100));
+
+        try {
+            assertThatThrownBy(() -> encoder.encode("slow")).isInstanceOf(PasswordHashingRejectedException.class);
+            assertThat(encoder.getStats().getRejected()).isEqualTo(1);
+        } finally {
+            delegate.release.countDown();
+        }
+    }
+
+    @Test
+    void delegateExceptionIsRethrown() {
+        PasswordEncoder failing = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("bad password");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(failing, 1, 1, Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> encoder.encode("secret"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad password");
+    }
+
+    @Test
+    void publishesMetrics() {
+        BlockingEncoder delegate = new BlockingEncoder();
+        delegate.release.countDown();
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(5));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        encoder.encode("secret");
+
+        assertThat(registry.get("security.password.hashing").tag("phase", "hash").timer().count()).isEqualTo(1);
+        assertThat(registry.get("security.password.hashing.rejected").functionCounter().count()).isZero();
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.getStats().getQueueDepth() < depth) {
+            assertThat(System.nanoTime()).as("ожидание очереди").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.mtuci.pshandakov.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordEncodersTest {
+
+    private static final String PASSWORD = "Str0ngPassword";
+
+    // минимальные параметры, чтобы тест не тратил время на хеширование
+    private static PasswordEncoder encoder(String idForEncode, int bcryptStrength) {
+        return PasswordEncoders.delegating(idForEncode, bcryptStrength, 1024, 1, 1);
+    }
+
+    @Test
+    void encodesWithTargetSchemePrefix() {
+        assertThat(encoder(PasswordEncoders.BCRYPT, 4).encode(PASSWORD)).startsWith("{bcrypt}$2a$04$");
+        assertThat(encoder(PasswordEncoders.ARGON2, 4).encode(PASSWORD)).startsWith("{argon2}$argon2id$");
+    }
+
+    @Test
+    void rejectsUnknownScheme() {
+        assertThatThrownBy(() -> encoder("md5", 4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void matchesLegacyHashWithoutPrefix() {
+        String legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        PasswordEncoder encoder = encoder(PasswordEncoders.ARGON2, 4);
+
+        assertThat(encoder.matches(PASSWORD, legacy)).isTrue();
+        assertThat(encoder.matches("wrong", legacy)).isFalse();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+    }
+
+    @Test
+    void requiresUpgradeForOtherSchemeOrCost() {
+        PasswordEncoder target = encoder(PasswordEncoders.BCRYPT, 5);
+
+        assertThat(target.upgradeEncoding(target.encode(PASSWORD))).isFalse();
+        assertThat(target.upgradeEncoding(encoder(PasswordEncoders.BCRYPT, 4).encode(PASSWORD))).isTrue();
+        // более высокая стоимость тоже приводится к целевой
+        assertThat(target.upgradeEncoding(encoder(PasswordEncoders.BCRYPT, 6).encode(PASSWORD))).isTrue();
+        assertThat(target.upgradeEncoding(encoder(PasswordEncoders.ARGON2, 5).encode(PASSWORD))).isTrue();
+    }
+
+    @Test
+    void successfulLoginRehashesWithTargetScheme() {
+        String stored = encoder(PasswordEncoders.BCRYPT, 4).encode(PASSWORD);
+        PasswordEncoder target = encoder(PasswordEncoders.ARGON2, 4);
+        AtomicReference<String> updated = new AtomicReference<>();
+
+        DaoAuthenticationProvider provider = provider(target, stored, updated);
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user@example.com", PASSWORD));
+
+        assertThat(updated.get()).startsWith("{argon2}");
+        assertThat(target.matches(PASSWORD, updated.get())).isTrue();
+    }
+
+    @Test
+    void failedLoginDoesNotRehash() {
+        String stored = encoder(PasswordEncoders.BCRYPT, 4).encode(PASSWORD);
+        AtomicReference<String> updated = new AtomicReference<>();
+
+        DaoAuthenticationProvider provider = provider(encoder(PasswordEncoders.ARGON2, 4), stored, updated);
+
+        assertThatThrownBy(() -> provider.authenticate(new UsernamePasswordAuthenticationToken("user@example.com", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(updated.get()).isNull();
+    }
+
+    @Test
+    void loginWithCurrentHashDoesNotRehash() {
+        PasswordEncoder target = encoder(PasswordEncoders.ARGON2, 4);
+        AtomicReference<String> updated = new AtomicReference<>();
+
+        DaoAuthenticationProvider provider = provider(target, target.encode(PASSWORD), updated);
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user@example.com", PASSWORD));
+
+        assertThat(updated.get()).isNull();
+    }
+
+    private static DaoAuthenticationProvider provider(PasswordEncoder encoder, String storedHash,
+                                                      AtomicReference<String> updated) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(encoder);
+        provider.setUserDetailsService(username -> User.withUsername(username)
+                .password(storedHash)
+                .roles("USER")
+                .build());
+        provider.setUserDetailsPasswordService((user, newPassword) -> {
+            updated.set(newPassword);
+            return User.withUserDetails(user).password(newPassword).build();
+        });
+        return provider;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.mtuci.pshandakov.utils;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignaturePoolTest {
+
+    private static final String ALGORITHM = "SHA256withRSA";
+
+    private static KeyPair keyPair;
+
+    @BeforeAll
+    static void generateKey() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    void reusedSignatureSignsEachMessageIndependently() throws Exception {
+        SignaturePool pool = new SignaturePool(ALGORITHM, keyPair.getPrivate(), 1);
+
+        byte[] first = "first".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(verify(first, pool.sign(first))).isTrue();
+        assertThat(verify(second, pool.sign(second))).isTrue();
+    }
+
+    @Test
+    void signsRangeOfArray() throws Exception {
+        SignaturePool pool = new SignaturePool(ALGORITHM, keyPair.getPrivate(), 1);
+        byte[] data = "xxpayloadxx".getBytes(StandardCharsets.UTF_8);
+
+        byte[] signature = pool.sign(data, 2, 7);
+
+        assertThat(verify("payload".getBytes(StandardCharsets.UTF_8), signature)).isTrue();
+    }
+
+    @Test
+    void emptyPoolFallsBackToTemporaryInstance() throws Exception {
+        SignaturePool pool = new SignaturePool(ALGORITHM, keyPair.getPrivate(), 0);
+        byte[] data = "payload".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(verify(data, pool.sign(data))).isTrue();
+    }
+
+    @Test
+    void concurrentSignaturesAreValid() throws Exception {
+        SignaturePool pool = new SignaturePool(ALGORITHM, keyPair.getPrivate(), 2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                byte[] data = ("payload-" + i).getBytes(StandardCharsets.UTF_8);
+                results.add(executor.submit(() -> verify(data, pool.sign(data))));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean verify(byte[] data, byte[] signature) throws GeneralSecurityException {
+        Signature verifier = Signature.getInstance(ALGORITHM);
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(data);
+        return verifier.verify(signature);
+    }
+}
@@ -0,0 +1,146 @@
+package ru.mtuci.pshandakov.utils;
+
+import org.junit.jupiter.api.Test;
+import ru.mtuci.pshandakov.model.LicenseCheckBatchItem;
+import ru.mtuci.pshandakov.model.Ticket;
+import ru.mtuci.pshandakov.model.TicketEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketCanonicalEncoderTest {
+
+    private static final LocalDateTime SERVER_DATE = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_456_789);
+
+    @Test
+    void encodesTicketFieldsInDocumentedOrder() throws IOException {
+        Ticket ticket = Ticket.builder()
+                .keyId("key-1")
+                .serverDate(SERVER_DATE)
+                .ticketLifetime(2)
+                .activationDate(new Date(1_000L))
+                .expirationDate(new Date(2_000L))
+                .userId(42L)
+                .deviceId(1337L)
+                .isBlocked(true)
+                .detail("Лицензия ✓ 😀")
+                .digitalSignature("ignored")
+                .build();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        out.writeByte(TicketCanonicalEncoder.FORMAT_VERSION);
+        writeString(out, "key-1");
+        out.writeLong(SERVER_DATE.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(123_456_789);
+        out.writeInt(2);
+        out.writeByte(1);
+        out.writeLong(1_000L);
+        out.writeByte(1);
+        out.writeLong(2_000L);
+        out.writeByte(1);
+        out.writeLong(42L);
+        out.writeByte(1);
+        out.writeLong(1337L);
+        out.writeByte(1);
+        writeString(out, "Лицензия ✓ 😀");
+
+        assertThat(TicketCanonicalEncoder.encode(ticket).toByteArray()).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    void encodesMissingFieldsWithAbsenceMarkers() throws IOException {
+        Ticket ticket = Ticket.builder().build();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        out.writeByte(TicketCanonicalEncoder.FORMAT_VERSION);
+        out.writeInt(-1);
+        out.writeLong(0);
+        out.writeInt(-1);
+        out.writeInt(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeInt(-1);
+
+        assertThat(TicketCanonicalEncoder.encode(ticket).toByteArray()).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    void signatureIsNotPartOfEncoding() {
+        Ticket ticket = Ticket.builder().keyId("key-1").detail("detail").build();
+        byte[] unsigned = TicketCanonicalEncoder.encode(ticket).toByteArray();
+
+        ticket.setDigitalSignature("signature");
+
+        assertThat(TicketCanonicalEncoder.encode(ticket).toByteArray()).isEqualTo(unsigned);
+    }
+
+    @Test
+    void loneSurrogateIsEncodedAsInStringGetBytes() {
+        String detail = "a\uD800b";
+        byte[] encoded = TicketCanonicalEncoder.encode(Ticket.builder().detail(detail).build()).toByteArray();
+        byte[] utf8 = detail.getBytes(StandardCharsets.UTF_8);
+
+        byte[] tail = new byte[utf8.length];
+        System.arraycopy(encoded, encoded.length - utf8.length, tail, 0, utf8.length);
+        assertThat(tail).isEqualTo(utf8);
+    }
+
+    @Test
+    void encodesEnvelopeWithTagAndNestedTickets() throws IOException {
+        Ticket ticket = Ticket.builder().keyId("key-1").detail("ok").build();
+        TicketEnvelope envelope = TicketEnvelope.builder()
+                .keyId("key-1")
+                .serverDate(SERVER_DATE)
+                .userId(7L)
+                .items(List.of(
+                        LicenseCheckBatchItem.builder().macAddress("AA").deviceName("pc").status(200).message("ok").ticket(ticket).build(),
+                        LicenseCheckBatchItem.builder().macAddress("BB").status(404).message("not found").build()))
+                .build();
+        byte[] encodedTicket = TicketCanonicalEncoder.encode(ticket).toByteArray();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        out.writeByte(TicketCanonicalEncoder.ENVELOPE_TAG);
+        out.writeByte(TicketCanonicalEncoder.ENVELOPE_FORMAT_VERSION);
+        writeString(out, "key-1");
+        out.writeLong(SERVER_DATE.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(123_456_789);
+        out.writeByte(1);
+        out.writeLong(7L);
+        out.writeInt(2);
+        writeString(out, "AA");
+        writeString(out, "pc");
+        out.writeInt(200);
+        writeString(out, "ok");
+        out.writeByte(1);
+        out.write(encodedTicket);
+        writeString(out, "BB");
+        out.writeInt(-1);
+        out.writeInt(404);
+        writeString(out, "not found");
+        out.writeByte(0);
+
+        byte[] encoded = TicketCanonicalEncoder.encode(envelope).toByteArray();
+        assertThat(encoded).isEqualTo(expected.toByteArray());
+        assertThat(encoded[0]).isNotEqualTo((byte) TicketCanonicalEncoder.FORMAT_VERSION);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.mtuci.pshandakov.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.mtuci.pshandakov.model.Ticket;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TicketSignerTest {
+
+    @ParameterizedTest
+    @EnumSource(TicketSignatureAlgorithm.class)
+    void signatureRoundTrip(TicketSignatureAlgorithm algorithm) throws Exception {
+        TicketSigner signer = newSigner(algorithm);
+        byte[] data = "ticket".getBytes(StandardCharsets.UTF_8);
+
+        byte[] signature = signer.sign(data, 0, data.length);
+
+        assertThat(signer.getAlgorithm()).isEqualTo(algorithm);
+        assertThat(signer.verify(data, 0, data.length, signature)).isTrue();
+
+        byte[] tampered = "tickeT".getBytes(StandardCharsets.UTF_8);
+        assertThat(signer.verify(tampered, 0, tampered.length, signature)).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(TicketSignatureAlgorithm.class)
+    void signatureFromAnotherKeyIsRejected(TicketSignatureAlgorithm algorithm) throws Exception {
+        byte[] data = "ticket".getBytes(StandardCharsets.UTF_8);
+        byte[] signature = newSigner(algorithm).sign(data, 0, data.length);
+
+        boolean valid;
+        try {
+            valid = newSigner(algorithm).verify(data, 0, data.length, signature);
+        } catch (GeneralSecurityException e) {
+            valid = false;
+        }
+        assertThat(valid).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(TicketSignatureAlgorithm.class)
+    void signedTicketVerifiesUntilChanged(TicketSignatureAlgorithm algorithm) throws Exception {
+        SignatureUtil.init(newSigner(algorithm));
+        Date expirationDate = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(30));
+
+        Ticket ticket = Ticket.createTicket(42L, false, expirationDate, "Лицензия активна");
+
+        assertThat(SignatureUtil.verifySignature(ticket)).isTrue();
+        ticket.setBlocked(true);
+        assertThat(SignatureUtil.verifySignature(ticket)).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(TicketSignatureAlgorithm.class)
+    void detectsAlgorithmFromPublicKey(TicketSignatureAlgorithm algorithm) throws Exception {
+        KeyPair keyPair = algorithm.generateKeyPair();
+
+        assertThat(TicketSignatureAlgorithm.fromPublicKey(keyPair.getPublic().getEncoded())).isEqualTo(algorithm);
+    }
+
+    @Test
+    void rejectsEcKeyOnOtherCurve() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp384r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+
+        assertThatThrownBy(() -> TicketSignatureAlgorithm.fromPublicKey(keyPair.getPublic().getEncoded()))
+                .isInstanceOf(GeneralSecurityException.class);
+        assertThatThrownBy(() -> TicketSignatureAlgorithm.ECDSA_P256.decodePrivateKey(keyPair.getPrivate().getEncoded()))
+                .isInstanceOf(GeneralSecurityException.class);
+    }
+
+    private static TicketSigner newSigner(TicketSignatureAlgorithm algorithm) throws GeneralSecurityException {
+        KeyPair keyPair = algorithm.generateKeyPair();
+        return algorithm.newSigner(SignatureUtil.computeKeyId(keyPair.getPublic()), keyPair.getPublic(), keyPair.getPrivate(), 2);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.mtuci.pshandakov.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = 1_000 * SECOND;
+
+    // 5 токенов, по одному в секунду
+    private final TokenBucket bucket = new TokenBucket(5, Duration.ofSeconds(5), START);
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(START)).isZero();
+        }
+
+        assertThat(bucket.tryAcquire(START)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(START);
+        }
+
+        assertThat(bucket.tryAcquire(START + SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryAcquire(START + SECOND)).isZero();
+        assertThat(bucket.tryAcquire(START + SECOND)).isPositive();
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateMoreThanCapacity() {
+        long later = START + 60 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(later)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+
+    @Test
+    void acquiresSeveralTokensAllOrNothing() {
+        assertThat(bucket.tryAcquire(START, 3)).isZero();
+
+        assertThat(bucket.tryAcquire(START, 3)).isEqualTo(SECOND);
+        // неудачная попытка ничего не списала
+        assertThat(bucket.tryAcquire(START, 2)).isZero();
+        assertThat(bucket.tryAcquire(START)).isPositive();
+    }
+
+    @Test
+    void requestLargerThanCapacityIsNeverGranted() {
+        assertThat(bucket.tryAcquire(START, 6)).isPositive();
+        assertThat(bucket.tryAcquire(START + 60 * SECOND, 6)).isPositive();
+    }
+
+    @Test
+    void releaseReturnsTokens() {
+        assertThat(bucket.tryAcquire(START, 5)).isZero();
+
+        bucket.release(2);
+
+        assertThat(bucket.tryAcquire(START, 2)).isZero();
+        assertThat(bucket.tryAcquire(START)).isPositive();
+    }
+}